@@ -89,3 +89,45 @@ create table if not exists user_feedback
 ) comment '用户反馈表' collate = utf8mb4_unicode_ci;
 
 
+
+
+-- 模型资源转存任务表（Tripo 任务成功后异步下载资源并转存 COS）
+create table if not exists model_finalize_job
+(
+    id              bigint auto_increment comment 'id' primary key,
+    taskId          varchar(256)                       not null comment 'Tripo3D任务ID',
+    status          varchar(50)  default 'pending'     not null comment '任务状态：pending/running/success/failed',
+    attempts        int          default 0             not null comment '已尝试次数',
+    lastError       varchar(1024)                      null comment '最近一次失败原因',
+    nextRunTime     datetime     default CURRENT_TIMESTAMP not null comment '下次可执行时间',
+    lockedUntil     datetime                           null comment '执行租约到期时间',
+    createTime      datetime     default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime      datetime     default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    UNIQUE KEY uk_taskId (taskId),
+    INDEX idx_status_nextRunTime (status, nextRunTime)
+) comment '模型资源转存任务' collate = utf8mb4_unicode_ci;
+
+-- 进行中的生成请求表（同一请求签名只创建一个生成任务）
+create table if not exists generation_flight
+(
+    id               bigint auto_increment comment 'id' primary key,
+    requestSignature varchar(128)                       not null comment '请求签名',
+    taskId           varchar(256)                       null comment 'Tripo3D任务ID',
+    createTime       datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime       datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    UNIQUE KEY uk_requestSignature (requestSignature)
+) comment '进行中的生成请求' collate = utf8mb4_unicode_ci;
+
+-- Tripo 图片 token 缓存表（相同图片重复提交时不再上传）
+create table if not exists image_token_cache
+(
+    id             bigint auto_increment comment 'id' primary key,
+    contentHash    char(64)                           not null comment '图片内容SHA-256',
+    keyFingerprint varchar(32)                        not null comment '上传所用API Key的指纹，token只能由同一账号使用',
+    imageToken     varchar(256)                       not null comment 'Tripo image_token',
+    expireTime     datetime                           not null comment '过期时间',
+    createTime     datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime     datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    UNIQUE KEY uk_contentHash_keyFingerprint (contentHash, keyFingerprint),
+    INDEX idx_expireTime (expireTime)
+) comment 'Tripo图片token缓存' collate = utf8mb4_unicode_ci;
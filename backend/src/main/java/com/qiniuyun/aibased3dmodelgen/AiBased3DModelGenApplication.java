@@ -2,8 +2,10 @@ package com.qiniuyun.aibased3dmodelgen;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AiBased3DModelGenApplication {
 
     public static void main(String[] args) {
@@ -23,15 +23,26 @@ public class AiGeneratorFacade {
     private AiGeneratorServiceFactory aiGeneratorServiceFactory;
     @Resource
     private Tripo3DService tripo3DService;
+    @Resource
+    private PromptAugmentCache promptAugmentCache;
 
     public String generatePrompt(Long appId, String message, ObjectGenTypeEnum objectGenTypeEnum) {
         if (objectGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        // 根据 appId 获取对应的 AI 服务实例
+        // 缓存按 appId 和生成类型隔离，未命中时再获取对应的 AI 服务实例
+        String cacheNamespace = appId + ":" + objectGenTypeEnum.getValue();
+        String cached = promptAugmentCache.get(cacheNamespace, message);
+        if (cached != null) {
+            return cached;
+        }
         AiGeneratorService aiGeneratorService = aiGeneratorServiceFactory.getAiGeneratorService(appId, objectGenTypeEnum);
         return switch (objectGenTypeEnum) {
-            case PBR -> aiGeneratorService.generatePBR(message);
+            case PBR -> {
+                String result = aiGeneratorService.generatePBR(message);
+                promptAugmentCache.put(cacheNamespace, message, result);
+                yield result;
+            }
             default -> {
                 String errorMessage = "不支持的生成类型：" + objectGenTypeEnum.getValue();
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
@@ -43,10 +54,22 @@ public class AiGeneratorFacade {
         if (objectGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        // 根据 appId 获取对应的 AI 服务实例
-        AiGeneratorService aiGeneratorService = aiGeneratorServiceFactory.getAiGeneratorService(appId, objectGenTypeEnum);
+        // 缓存按 appId 和生成类型隔离，命中时按节奏回放，前端看到的仍是流式输出
+        String cacheNamespace = appId + ":" + objectGenTypeEnum.getValue();
+        String cached = promptAugmentCache.get(cacheNamespace, message);
+        if (cached != null) {
+            return promptAugmentCache.replay(cached);
+        }
         return switch (objectGenTypeEnum) {
-            case PBR -> aiGeneratorService.generatePBRStream(message);
+            case PBR -> {
+                // 由路由在多个模型间选择、对冲和故障转移
+                LlmRouter llmRouter = aiGeneratorServiceFactory.getLlmRouter(appId, objectGenTypeEnum);
+                // 完整输出结束后才写入缓存，中途失败或取消的结果不缓存
+                StringBuilder result = new StringBuilder();
+                yield llmRouter.stream(message)
+                        .doOnNext(result::append)
+                        .doOnComplete(() -> promptAugmentCache.put(cacheNamespace, message, result.toString()));
+            }
             default -> {
                 String errorMessage = "不支持的生成类型：" + objectGenTypeEnum.getValue();
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
@@ -1,5 +1,8 @@
 package com.qiniuyun.aibased3dmodelgen.ai;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.qiniuyun.aibased3dmodelgen.config.LlmRouterConfig;
 import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
 import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
 import com.qiniuyun.aibased3dmodelgen.model.enums.ObjectGenTypeEnum;
@@ -7,6 +10,7 @@ import com.qiniuyun.aibased3dmodelgen.utils.SpringContextUtil;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -18,9 +22,38 @@ import org.springframework.context.annotation.Configuration;
 @Slf4j
 public class AiGeneratorServiceFactory {
 
+    /**
+     * 缓存的服务实例上限
+     */
+    private static final int SERVICE_CACHE_CAPACITY = 100;
+
+    /**
+     * 服务实例闲置过期时间
+     */
+    private static final long SERVICE_CACHE_TTL_MILLIS = 30 * 60 * 1000L;
+
     @Resource(name = "openAiChatModel")
     private ChatModel chatModel;
 
+    @Resource
+    private LlmRouterConfig llmRouterConfig;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * (appId, 生成类型) -> AI 服务实例
+     * 服务实例不带会话记忆，底层模型客户端线程安全，可以被并发请求共用
+     */
+    private final LRUCache<String, AiGeneratorService> serviceCache =
+            CacheUtil.newLRUCache(SERVICE_CACHE_CAPACITY, SERVICE_CACHE_TTL_MILLIS);
+
+    /**
+     * (appId, 生成类型) -> 大模型路由，路由内保存各提供方的耗时统计
+     */
+    private final LRUCache<String, LlmRouter> routerCache =
+            CacheUtil.newLRUCache(SERVICE_CACHE_CAPACITY, SERVICE_CACHE_TTL_MILLIS);
+
     /**
      * 创建 AI 代码生成器服务
      * @param appId
@@ -32,7 +65,7 @@ public class AiGeneratorServiceFactory {
         return switch (objectGenType) {
             // PBR
             case PBR -> {
-                // 使用多例模式的 StreamingChatModel 解决并发问题
+                // 每个缓存实例持有独立的 StreamingChatModel，实例内的并发请求共用其 HTTP 客户端
                 StreamingChatModel openAiStreamingChatModel = SpringContextUtil.getBean("streamingChatModelPrototype", StreamingChatModel.class);
                 yield AiServices.builder(AiGeneratorService.class)
                         .chatModel(chatModel)
@@ -45,12 +78,49 @@ public class AiGeneratorServiceFactory {
     }
 
     /**
-     * 根据 appId 获取服务
+     * 获取流式生成的大模型路由，优先使用缓存的实例
+     * @param appId
+     * @param objectGenType
+     * @return
+     */
+    public LlmRouter getLlmRouter(long appId, ObjectGenTypeEnum objectGenType) {
+        String cacheKey = appId + ":" + objectGenType.getValue();
+        return routerCache.get(cacheKey, () -> createLlmRouter(appId, objectGenType));
+    }
+
+    /**
+     * 创建大模型路由：通用对话模型为默认提供方，推理模型作为复杂提示词的主提供方及对冲、故障转移的备选
+     */
+    private LlmRouter createLlmRouter(long appId, ObjectGenTypeEnum objectGenType) {
+        log.info("为 appId: {} 创建大模型路由", appId);
+        return switch (objectGenType) {
+            case PBR -> {
+                AiGeneratorService chatService = getAiGeneratorService(appId, objectGenType);
+                LlmProvider fastProvider = new LlmProvider("chat", chatService::generatePBRStream, meterRegistry);
+                LlmProvider reasoningProvider = null;
+                if (llmRouterConfig.isReasoningEnabled()) {
+                    StreamingChatModel reasoningStreamingChatModel = SpringContextUtil.getBean("reasoningStreamingChatModelPrototype", StreamingChatModel.class);
+                    AiGeneratorService reasoningService = AiServices.builder(AiGeneratorService.class)
+                            .chatModel(chatModel)
+                            .streamingChatModel(reasoningStreamingChatModel)
+                            .build();
+                    reasoningProvider = new LlmProvider("reasoning", reasoningService::generatePBRStream, meterRegistry);
+                }
+                yield new LlmRouter(fastProvider, reasoningProvider, llmRouterConfig, meterRegistry);
+            }
+            default ->
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的模型生成类型: " + objectGenType.getValue());
+        };
+    }
+
+    /**
+     * 根据 appId 获取服务，优先使用缓存的实例
      * @param appId
      * @param objectGenType
      * @return
      */
     public AiGeneratorService getAiGeneratorService(long appId, ObjectGenTypeEnum objectGenType) {
-        return createAiGeneratorService(appId, objectGenType);
+        String cacheKey = appId + ":" + objectGenType.getValue();
+        return serviceCache.get(cacheKey, () -> createAiGeneratorService(appId, objectGenType));
     }
 }
@@ -0,0 +1,144 @@
+package com.qiniuyun.aibased3dmodelgen.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 大模型提供方
+ * 包装一个流式生成函数，记录首 token 耗时和连续失败次数，供 {@link LlmRouter} 选择与对冲
+ */
+public class LlmProvider {
+
+    /**
+     * 首 token 耗时的滑动窗口大小
+     */
+    private static final int WINDOW_SIZE = 100;
+
+    /**
+     * 计算分位数所需的最少样本数
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    /**
+     * 连续失败达到该次数视为不健康
+     */
+    private static final int UNHEALTHY_FAILURES = 3;
+
+    /**
+     * 不健康状态的持续时间，之后重新尝试
+     */
+    private static final long UNHEALTHY_MILLIS = 30_000L;
+
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final String name;
+
+    private final Function<String, Flux<String>> streamer;
+
+    private final Timer ttftTimer;
+
+    private final Counter failureCounter;
+
+    private final long[] ttftWindow = new long[WINDOW_SIZE];
+
+    private int sampleCount;
+
+    private int nextIndex;
+
+    private double ewmaTtftMillis = -1;
+
+    private int consecutiveFailures;
+
+    private long lastFailureMillis;
+
+    public LlmProvider(String name, Function<String, Flux<String>> streamer, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.streamer = streamer;
+        this.ttftTimer = Timer.builder("ai.llm.ttft")
+                .description("大模型首 token 耗时")
+                .tag("provider", name)
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("ai.llm.failures")
+                .description("大模型调用失败次数")
+                .tag("provider", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 发起流式生成，并记录首 token 耗时与失败
+     */
+    public Flux<String> stream(String message) {
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            return streamer.apply(message)
+                    .doOnNext(chunk -> {
+                        if (firstToken.compareAndSet(true, false)) {
+                            recordFirstToken((System.nanoTime() - startNanos) / 1_000_000L);
+                        }
+                    })
+                    // 对冲落败被取消时首 token 耗时至少为已等待的时间，同样计入样本，避免慢的提供方一直不被识别
+                    .doOnCancel(() -> {
+                        if (firstToken.get()) {
+                            recordLatencySample((System.nanoTime() - startNanos) / 1_000_000L);
+                        }
+                    })
+                    .doOnError(e -> recordFailure());
+        });
+    }
+
+    synchronized void recordFirstToken(long millis) {
+        recordLatencySample(millis);
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void recordLatencySample(long millis) {
+        ttftTimer.record(Duration.ofMillis(millis));
+        ttftWindow[nextIndex] = millis;
+        nextIndex = (nextIndex + 1) % WINDOW_SIZE;
+        sampleCount = Math.min(WINDOW_SIZE, sampleCount + 1);
+        ewmaTtftMillis = ewmaTtftMillis < 0 ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewmaTtftMillis;
+    }
+
+    synchronized void recordFailure() {
+        failureCounter.increment();
+        consecutiveFailures++;
+        lastFailureMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 首 token 耗时的分位数，样本不足时返回 -1
+     */
+    synchronized long ttftPercentile(double percentile) {
+        if (sampleCount < MIN_SAMPLES) {
+            return -1;
+        }
+        long[] samples = Arrays.copyOf(ttftWindow, sampleCount);
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(percentile * samples.length) - 1;
+        return samples[Math.max(0, Math.min(samples.length - 1, index))];
+    }
+
+    /**
+     * 首 token 耗时的指数加权平均，样本不足时返回 -1
+     */
+    synchronized double ewmaTtftMillis() {
+        return sampleCount < MIN_SAMPLES ? -1 : ewmaTtftMillis;
+    }
+
+    synchronized boolean isHealthy() {
+        return consecutiveFailures < UNHEALTHY_FAILURES
+                || System.currentTimeMillis() - lastFailureMillis > UNHEALTHY_MILLIS;
+    }
+}
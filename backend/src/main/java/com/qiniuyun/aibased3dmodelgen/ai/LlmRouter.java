@@ -0,0 +1,137 @@
+package com.qiniuyun.aibased3dmodelgen.ai;
+
+import com.qiniuyun.aibased3dmodelgen.config.LlmRouterConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 大模型路由
+ * 按提示词复杂度和观测到的首 token 耗时选择主提供方；主提供方在分位数阈值内没有输出首 token 时
+ * 对冲请求备选提供方，主提供方出错时立即故障转移，取先输出的一方并取消另一方
+ */
+@Slf4j
+public class LlmRouter {
+
+    private final LlmProvider fastProvider;
+
+    private final LlmProvider reasoningProvider;
+
+    private final LlmRouterConfig config;
+
+    private final Counter hedgeCounter;
+
+    private final Counter failoverCounter;
+
+    /**
+     * @param fastProvider      通用对话模型
+     * @param reasoningProvider 推理模型，为空时只使用通用对话模型
+     * @param config            路由配置
+     * @param meterRegistry     指标注册表
+     */
+    public LlmRouter(LlmProvider fastProvider, LlmProvider reasoningProvider, LlmRouterConfig config,
+                     MeterRegistry meterRegistry) {
+        this.fastProvider = fastProvider;
+        this.reasoningProvider = reasoningProvider;
+        this.config = config;
+        this.hedgeCounter = backupCounter(meterRegistry, "hedge");
+        this.failoverCounter = backupCounter(meterRegistry, "failover");
+    }
+
+    private static Counter backupCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("ai.llm.backup.requests")
+                .description("大模型备选提供方调用次数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 流式生成
+     *
+     * @param message 用户消息
+     * @return 先输出首 token 的提供方的完整输出
+     */
+    public Flux<String> stream(String message) {
+        List<LlmProvider> ranked = rank(message);
+        LlmProvider primary = ranked.get(0);
+        if (ranked.size() == 1) {
+            return primary.stream(message);
+        }
+        LlmProvider backup = ranked.get(1);
+        return Flux.defer(() -> {
+            Duration hedgeDelay = hedgeDelay(primary);
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            AtomicBoolean failover = new AtomicBoolean();
+            Flux<String> primaryFlux = primary.stream(message)
+                    .doOnError(e -> {
+                        log.warn("大模型 {} 调用失败，转移到 {}: {}", primary.getName(), backup.getName(), e.getMessage());
+                        failover.set(true);
+                        primaryFailed.tryEmitEmpty();
+                    });
+            // 等到对冲时间或主提供方失败时才请求备选，主提供方先输出时备选不会发起
+            Flux<String> backupFlux = Mono.firstWithSignal(Mono.delay(hedgeDelay).then(), primaryFailed.asMono())
+                    .thenMany(Flux.defer(() -> {
+                        if (failover.get()) {
+                            failoverCounter.increment();
+                        } else {
+                            hedgeCounter.increment();
+                            log.info("大模型 {} 首 token 超过 {} ms，对冲请求 {}", primary.getName(),
+                                    hedgeDelay.toMillis(), backup.getName());
+                        }
+                        return backup.stream(message);
+                    }));
+            return Flux.firstWithValue(primaryFlux, backupFlux);
+        });
+    }
+
+    /**
+     * 按复杂度确定主备，再根据健康状况和首 token 耗时调整
+     */
+    List<LlmProvider> rank(String message) {
+        if (reasoningProvider == null) {
+            return List.of(fastProvider);
+        }
+        LlmProvider primary = complexity(message) >= config.getComplexPromptThreshold() ? reasoningProvider : fastProvider;
+        LlmProvider backup = primary == fastProvider ? reasoningProvider : fastProvider;
+        if (!primary.isHealthy() && backup.isHealthy()) {
+            return List.of(backup, primary);
+        }
+        double primaryLatency = primary.ewmaTtftMillis();
+        double backupLatency = backup.ewmaTtftMillis();
+        if (primaryLatency > 0 && backupLatency > 0 && primaryLatency > backupLatency * config.getLatencySwapRatio()) {
+            return List.of(backup, primary);
+        }
+        return List.of(primary, backup);
+    }
+
+    /**
+     * 提示词复杂度：长度加上分句数量的加权，分句越多越可能包含多个约束
+     */
+    static int complexity(String message) {
+        if (message == null) {
+            return 0;
+        }
+        int clauses = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == ',' || c == '，' || c == ';' || c == '；' || c == '、' || c == '.' || c == '。' || c == '\n') {
+                clauses++;
+            }
+        }
+        return message.length() + clauses * 10;
+    }
+
+    private Duration hedgeDelay(LlmProvider primary) {
+        long percentile = primary.ttftPercentile(config.getHedgePercentile());
+        long delayMillis = percentile < 0 ? config.getDefaultHedgeDelayMs() : percentile;
+        delayMillis = Math.max(config.getMinHedgeDelayMs(), Math.min(config.getMaxHedgeDelayMs(), delayMillis));
+        return Duration.ofMillis(delayMillis);
+    }
+}
@@ -0,0 +1,227 @@
+package com.qiniuyun.aibased3dmodelgen.ai;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 提示词增强结果缓存
+ * 归一化后完全相同的提示词直接命中；否则用字符 n-gram 哈希向量在进程内做余弦相似度检索，
+ * 相似度达到阈值视为近似命中。命中结果可按固定节奏切片回放，保持流式输出的体验
+ */
+@Component
+@Slf4j
+public class PromptAugmentCache {
+
+    /**
+     * 向量维度
+     */
+    private static final int VECTOR_DIMENSION = 512;
+
+    private final boolean enabled;
+
+    private final double similarityThreshold;
+
+    private final int replayChunkSize;
+
+    private final Duration replayInterval;
+
+    private final LRUCache<String, Entry> cache;
+
+    private final Counter exactHitCounter;
+
+    private final Counter nearHitCounter;
+
+    private final Counter missCounter;
+
+    public PromptAugmentCache(MeterRegistry meterRegistry,
+                              @Value("${ai.prompt-cache.enabled:true}") boolean enabled,
+                              @Value("${ai.prompt-cache.capacity:2000}") int capacity,
+                              @Value("${ai.prompt-cache.ttl-minutes:1440}") long ttlMinutes,
+                              @Value("${ai.prompt-cache.similarity-threshold:0.9}") double similarityThreshold,
+                              @Value("${ai.prompt-cache.replay-chunk-size:4}") int replayChunkSize,
+                              @Value("${ai.prompt-cache.replay-interval-ms:15}") long replayIntervalMs) {
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.replayChunkSize = Math.max(1, replayChunkSize);
+        this.replayInterval = Duration.ofMillis(replayIntervalMs);
+        this.cache = CacheUtil.newLRUCache(capacity, Duration.ofMinutes(ttlMinutes).toMillis());
+        this.exactHitCounter = lookupCounter(meterRegistry, "exact");
+        this.nearHitCounter = lookupCounter(meterRegistry, "near");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("ai.prompt.cache.hit.ratio", this, PromptAugmentCache::hitRatio)
+                .description("提示词增强缓存命中率（含近似命中）")
+                .register(meterRegistry);
+        Gauge.builder("ai.prompt.cache.size", cache, LRUCache::size)
+                .description("提示词增强缓存条数")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai.prompt.cache.lookups")
+                .description("提示词增强缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param namespace 命名空间，不同应用、生成类型的结果互不复用
+     * @param message   用户原始提示词
+     * @return 增强后的提示词，未命中返回 null
+     */
+    public String get(String namespace, String message) {
+        if (!enabled || StrUtil.isBlank(message)) {
+            return null;
+        }
+        String normalized = normalize(message);
+        Entry exact = cache.get(cacheKey(namespace, normalized));
+        if (exact != null) {
+            exactHitCounter.increment();
+            return exact.result;
+        }
+        float[] vector = embed(normalized);
+        Entry best = null;
+        double bestScore = 0;
+        for (Entry entry : cache) {
+            if (!entry.namespace.equals(namespace)) {
+                continue;
+            }
+            double score = cosine(vector, entry.vector);
+            if (score > bestScore) {
+                bestScore = score;
+                best = entry;
+            }
+        }
+        if (best != null && bestScore >= similarityThreshold) {
+            nearHitCounter.increment();
+            log.info("提示词增强缓存近似命中，相似度: {}，原提示词: {}，命中提示词: {}",
+                    String.format("%.3f", bestScore), normalized, best.normalized);
+            return best.result;
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param namespace 命名空间
+     * @param message   用户原始提示词
+     * @param result    增强后的提示词
+     */
+    public void put(String namespace, String message, String result) {
+        if (!enabled || StrUtil.hasBlank(message, result)) {
+            return;
+        }
+        String normalized = normalize(message);
+        cache.put(cacheKey(namespace, normalized), new Entry(namespace, normalized, embed(normalized), result));
+    }
+
+    /**
+     * 把缓存结果切片后按固定节奏回放，与模型流式输出的体验保持一致
+     */
+    public Flux<String> replay(String result) {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < result.length(); i += replayChunkSize) {
+            chunks.add(result.substring(i, Math.min(result.length(), i + replayChunkSize)));
+        }
+        return Flux.fromIterable(chunks).delayElements(replayInterval);
+    }
+
+    double hitRatio() {
+        double hits = exactHitCounter.count() + nearHitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * 归一化：转小写、统一全角字符、去掉标点并合并空白
+     */
+    static String normalize(String message) {
+        String text = StrUtil.trim(Convert.toDBC(message)).toLowerCase(Locale.ROOT);
+        text = text.replaceAll("[\\p{P}\\p{S}]+", " ");
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 字符 bigram/trigram 以及整词的特征哈希向量，已做 L2 归一化
+     * 按字符切分可以同时处理中文和英文，不依赖分词或外部向量模型
+     */
+    static float[] embed(String normalized) {
+        float[] vector = new float[VECTOR_DIMENSION];
+        String padded = " " + normalized + " ";
+        for (int n = 2; n <= 3; n++) {
+            for (int i = 0; i + n <= padded.length(); i++) {
+                addFeature(vector, padded.substring(i, i + n));
+            }
+        }
+        for (String word : normalized.split(" ")) {
+            if (!word.isEmpty()) {
+                addFeature(vector, "w:" + word);
+            }
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private static void addFeature(float[] vector, String feature) {
+        int hash = feature.hashCode();
+        int index = Math.floorMod(hash, VECTOR_DIMENSION);
+        // 用哈希的另一位决定符号，减少哈希冲突带来的偏差
+        vector[index] += ((hash >>> 16) & 1) == 0 ? 1 : -1;
+    }
+
+    static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    private static String cacheKey(String namespace, String normalized) {
+        return namespace + "|" + normalized;
+    }
+
+    private static class Entry {
+
+        private final String namespace;
+
+        private final String normalized;
+
+        private final float[] vector;
+
+        private final String result;
+
+        Entry(String namespace, String normalized, float[] vector, String result) {
+            this.namespace = namespace;
+            this.normalized = normalized;
+            this.vector = vector;
+            this.result = result;
+        }
+    }
+}
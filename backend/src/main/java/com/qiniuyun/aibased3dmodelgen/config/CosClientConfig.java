@@ -1,9 +1,12 @@
 package com.qiniuyun.aibased3dmodelgen.config;
 
+import cn.hutool.core.util.StrUtil;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.ClientConfig;
 import com.qcloud.cos.auth.BasicCOSCredentials;
 import com.qcloud.cos.auth.COSCredentials;
+import com.qcloud.cos.endpoint.EndpointBuilder;
+import com.qcloud.cos.http.HttpProtocol;
 import com.qcloud.cos.region.Region;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -43,12 +46,36 @@ public class CosClientConfig {
      */
     private String bucket;
 
+    /**
+     * 自定义访问地址（host:port），配置后所有请求发往该地址，用于本地 COS/S3 兼容服务；为空时按区域访问 COS
+     */
+    private String endpoint;
+
+    /**
+     * 请求协议：https 或 http
+     */
+    private String httpProtocol = "https";
+
     @Bean
     public COSClient cosClient() {
         // 初始化用户身份信息(secretId, secretKey)
         COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
         // 设置bucket的区域
         ClientConfig clientConfig = new ClientConfig(new Region(region));
+        clientConfig.setHttpProtocol(HttpProtocol.valueOf(httpProtocol));
+        if (StrUtil.isNotBlank(endpoint)) {
+            clientConfig.setEndpointBuilder(new EndpointBuilder() {
+                @Override
+                public String buildGeneralApiEndpoint(String bucketName) {
+                    return endpoint;
+                }
+
+                @Override
+                public String buildGetServiceApiEndpoint() {
+                    return endpoint;
+                }
+            });
+        }
         // 生成cos客户端
         return new COSClient(cred, clientConfig);
     }
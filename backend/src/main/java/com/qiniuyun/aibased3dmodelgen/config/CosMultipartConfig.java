@@ -0,0 +1,35 @@
+package com.qiniuyun.aibased3dmodelgen.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * COS 分片上传配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cos.multipart")
+@Data
+public class CosMultipartConfig {
+
+    /**
+     * 文件不小于该大小时使用分片上传
+     */
+    private DataSize threshold = DataSize.ofMegabytes(16);
+
+    /**
+     * 分片大小，COS 要求除最后一片外不小于 1MB，且分片数不超过 10000
+     */
+    private DataSize partSize = DataSize.ofMegabytes(8);
+
+    /**
+     * 单个文件同时上传的分片数
+     */
+    private int parallelism = 4;
+
+    /**
+     * 单个分片失败后的重试次数
+     */
+    private int partRetries = 2;
+}
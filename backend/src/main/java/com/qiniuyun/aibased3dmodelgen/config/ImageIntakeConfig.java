@@ -0,0 +1,34 @@
+package com.qiniuyun.aibased3dmodelgen.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 图片校验与缩放配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "image-intake")
+@Data
+public class ImageIntakeConfig {
+
+    /**
+     * 最小边长（像素），Tripo3D 无法处理更小的图片
+     */
+    private int minDimension = 20;
+
+    /**
+     * 最大边长（像素），超过时直接拒绝，避免解码超大图片耗尽内存
+     */
+    private int maxSourceDimension = 8000;
+
+    /**
+     * 长边超过该值时缩放到该值后再上传
+     */
+    private int targetDimension = 2048;
+
+    /**
+     * 缩放后重新编码为 JPEG 时的质量（0-1）
+     */
+    private float jpegQuality = 0.9f;
+}
@@ -0,0 +1,49 @@
+package com.qiniuyun.aibased3dmodelgen.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 大模型路由配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.router")
+@Data
+public class LlmRouterConfig {
+
+    /**
+     * 是否启用推理模型作为第二个提供方（对冲与故障转移）
+     */
+    private boolean reasoningEnabled = true;
+
+    /**
+     * 复杂度达到该值的提示词优先交给推理模型
+     */
+    private int complexPromptThreshold = 120;
+
+    /**
+     * 对冲阈值取主提供方首 token 耗时的分位数
+     */
+    private double hedgePercentile = 0.9;
+
+    /**
+     * 样本不足时的对冲等待时间（毫秒）
+     */
+    private long defaultHedgeDelayMs = 3000;
+
+    /**
+     * 对冲等待时间下限（毫秒）
+     */
+    private long minHedgeDelayMs = 500;
+
+    /**
+     * 对冲等待时间上限（毫秒）
+     */
+    private long maxHedgeDelayMs = 8000;
+
+    /**
+     * 主提供方平均首 token 耗时超过备选的该倍数时交换主备
+     */
+    private double latencySwapRatio = 2.0;
+}
@@ -1,10 +1,8 @@
 package com.qiniuyun.aibased3dmodelgen.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.beans.factory.annotation.Qualifier;
-import reactor.core.scheduler.Scheduler;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -12,18 +10,30 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Configuration
 public class ReactiveSchedulerConfig {
 
-    @Bean(name = "tripoBlockingExecutor", destroyMethod = "shutdown")
-    public ExecutorService tripoBlockingExecutor() {
-        int cpu = Runtime.getRuntime().availableProcessors();
-        int poolSize = Math.max(4, cpu * 2); // 可根据负载调优
-        int queueCapacity = 1024;            // 有界队列，避免无限堆积
+    /**
+     * 阻塞任务执行模式：platform 使用固定大小线程池，virtual 每个任务一个虚拟线程；
+     * 访问 Tripo、COS、MySQL 的调用由 BlockingResourceLimiter 中各自的舱壁执行和限流
+     */
+    @Value("${blocking-scheduler.mode:platform}")
+    private String blockingMode;
+
+    /**
+     * 模型资源转存线程池（下载 Tripo 资源并流式上传 COS）
+     */
+    @Bean(name = "assetTransferExecutor", destroyMethod = "shutdown")
+    public ExecutorService assetTransferExecutor() {
+        if (isVirtualMode()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("asset-transfer-vt-", 1).factory());
+        }
+        int poolSize = 8;                    // 同时进行的资源转存数，可根据带宽调优
+        int queueCapacity = 256;
 
         ThreadFactory tf = new ThreadFactory() {
             private final AtomicInteger idx = new AtomicInteger(1);
             @Override
             public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "tripo-block-" + idx.getAndIncrement());
-                t.setDaemon(true); // 后台线程
+                Thread t = new Thread(r, "asset-transfer-" + idx.getAndIncrement());
+                t.setDaemon(true);
                 return t;
             }
         };
@@ -35,12 +45,40 @@ public class ReactiveSchedulerConfig {
                 TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(queueCapacity),
                 tf,
-                new ThreadPoolExecutor.CallerRunsPolicy() // 简单背压：队列满时在调用线程执行
+                // 队列满时直接拒绝，资源转存任务保持待处理状态，稍后由 ModelFinalizeWorker 重新领取
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * 资源转存任务线程池，由 ModelFinalizeWorker 按空闲容量领取任务，不会排队
+     */
+    @Bean(name = "finalizeJobExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor finalizeJobExecutor() {
+        int poolSize = 4;
+
+        ThreadFactory tf = new ThreadFactory() {
+            private final AtomicInteger idx = new AtomicInteger(1);
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "finalize-job-" + idx.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(poolSize),
+                tf,
+                new ThreadPoolExecutor.AbortPolicy()
         );
     }
 
-    @Bean(name = "tripoBlockingScheduler")
-    public Scheduler tripoBlockingScheduler(@Qualifier("tripoBlockingExecutor") ExecutorService executor) {
-        return Schedulers.fromExecutorService(executor);
+    private boolean isVirtualMode() {
+        return "virtual".equalsIgnoreCase(blockingMode);
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.qiniuyun.aibased3dmodelgen.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tripo3D 调用限流配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tripo3d.governor")
+@Data
+public class TripoGovernorConfig {
+
+    /**
+     * 同时进行中（已创建未结束）的任务数上限
+     */
+    private int maxInFlightTasks = 50;
+
+    /**
+     * 进行中任务的最长记录时间（分钟），超过后不再计入上限，避免漏掉结束通知的任务一直占用名额
+     */
+    private long inFlightTtlMinutes = 30;
+
+    /**
+     * 创建任务
+     */
+    private Limit create = new Limit(2, 5, 5000);
+
+    /**
+     * 上传图片
+     */
+    private Limit upload = new Limit(2, 5, 5000);
+
+    /**
+     * 查询任务状态，轮询不应被丢弃，允许更长的排队时间
+     */
+    private Limit status = new Limit(10, 20, 30000);
+
+    @Data
+    public static class Limit {
+
+        /**
+         * 每秒请求数
+         */
+        private double rate;
+
+        /**
+         * 允许的突发请求数
+         */
+        private int burst;
+
+        /**
+         * 最长排队时间（毫秒），超过后直接拒绝
+         */
+        private long maxWaitMs;
+
+        public Limit() {
+        }
+
+        public Limit(double rate, int burst, long maxWaitMs) {
+            this.rate = rate;
+            this.burst = burst;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+}
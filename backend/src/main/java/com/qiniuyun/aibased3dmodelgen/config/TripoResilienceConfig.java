@@ -0,0 +1,49 @@
+package com.qiniuyun.aibased3dmodelgen.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tripo3D 调用重试与熔断配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tripo3d.resilience")
+@Data
+public class TripoResilienceConfig {
+
+    /**
+     * 幂等调用（状态查询、资源下载）的最大重试次数
+     */
+    private int retryMaxAttempts = 3;
+
+    /**
+     * 首次重试的退避时间（毫秒），之后按指数增长
+     */
+    private long retryMinBackoffMs = 500;
+
+    /**
+     * 退避时间上限（毫秒）
+     */
+    private long retryMaxBackoffMs = 5000;
+
+    /**
+     * 退避时间的随机抖动比例，避免大量轮询同时重试
+     */
+    private double retryJitter = 0.5;
+
+    /**
+     * 连续失败达到该次数时熔断
+     */
+    private int breakerFailureThreshold = 5;
+
+    /**
+     * 首次熔断的持续时间（毫秒），试探失败后加倍
+     */
+    private long breakerOpenDurationMs = 10000;
+
+    /**
+     * 熔断持续时间上限（毫秒）
+     */
+    private long breakerMaxOpenDurationMs = 120000;
+}
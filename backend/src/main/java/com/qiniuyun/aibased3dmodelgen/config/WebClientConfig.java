@@ -1,5 +1,6 @@
 package com.qiniuyun.aibased3dmodelgen.config;
 
+import com.qiniuyun.aibased3dmodelgen.manager.tripo.TripoApiGovernor;
 import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -22,7 +23,7 @@ public class WebClientConfig {
     private String tripo3dBaseUrl;
 
     @Bean
-    public WebClient tripo3dWebClient() {
+    public WebClient tripo3dWebClient(TripoApiGovernor tripoApiGovernor) {
         // 配置连接池
         ConnectionProvider connectionProvider = ConnectionProvider.builder("custom")
                 .maxConnections(100)
@@ -48,6 +49,8 @@ public class WebClientConfig {
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .exchangeStrategies(strategies)
+                // 读取限流响应头，429 转换为 TripoRateLimitException
+                .filter(tripoApiGovernor.responseFilter())
                 .build();
     }
 
@@ -1,22 +1,42 @@
 package com.qiniuyun.aibased3dmodelgen.controller;
 
+import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import com.qiniuyun.aibased3dmodelgen.ai.AiGeneratorFacade;
+import com.qiniuyun.aibased3dmodelgen.constant.UserConstant;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
 import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
 import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageInfo;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageIntake;
+import com.qiniuyun.aibased3dmodelgen.manager.image.NormalizedImage;
+import com.qiniuyun.aibased3dmodelgen.manager.task.AdaptivePollScheduler;
+import com.qiniuyun.aibased3dmodelgen.manager.task.GenerationFlightManager;
+import com.qiniuyun.aibased3dmodelgen.manager.task.ModelFinalizeWorker;
+import com.qiniuyun.aibased3dmodelgen.manager.task.TaskPollManager;
+import com.qiniuyun.aibased3dmodelgen.manager.task.TaskProgressTracker;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ImageGenerateStreamRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ImageToModelRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateRequest;
+import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateResponse;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateStreamRequest;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserPrincipal;
 import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.entity.User;
 import com.qiniuyun.aibased3dmodelgen.model.enums.UploadFileTypeEnum;
 import com.qiniuyun.aibased3dmodelgen.model.enums.ObjectGenTypeEnum;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
 import com.qiniuyun.aibased3dmodelgen.model.vo.Model3DVO;
 import com.qiniuyun.aibased3dmodelgen.service.AppService;
 import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
 import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import com.qiniuyun.aibased3dmodelgen.service.UserService;
+import com.qiniuyun.aibased3dmodelgen.utils.SseChunkCoalescer;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -26,18 +46,33 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/app")
 @Slf4j
 public class AppController {
 
+    /**
+     * SSE 流等待资源转存完成的最长时间
+     */
+    private static final Duration FINALIZE_WAIT_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * 系统繁忙时建议客户端重试的等待时间
+     */
+    private static final Duration OVERLOAD_RETRY_AFTER = Duration.ofSeconds(5);
+
     @Resource
     private AppService appService;
 
@@ -50,8 +85,26 @@ public class AppController {
     @Resource
     private AiGeneratorFacade aiGeneratorFacade;
 
-    @Resource(name = "tripoBlockingScheduler")
-    private Scheduler tripoBlockingScheduler;
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private TaskPollManager taskPollManager;
+
+    @Resource
+    private ModelFinalizeWorker modelFinalizeWorker;
+
+    @Resource
+    private GenerationFlightManager generationFlightManager;
+
+    @Resource
+    private TaskProgressTracker taskProgressTracker;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    @Resource
+    private ImageIntake imageIntake;
 
 
     @GetMapping(value = "/augment/prompt", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -63,14 +116,8 @@ public class AppController {
 
         // 调用服务生成（SSE 流式返回）
         Flux<String> contentFlux = appService.augmentPrompt(appId, message, ObjectGenTypeEnum.PBR);
-        return contentFlux
-                .map(chunk -> {
-                    Map<String, String> wrapper = Map.of("d", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonData)
-                            .build();
-                })
+        // 短时间窗口内的 token 合并为一个事件发送
+        return SseChunkCoalescer.coalesce(contentFlux, null)
                 .concatWith(Mono.just(
                         // 发送结束事件
                         ServerSentEvent.<String>builder()
@@ -88,126 +135,51 @@ public class AppController {
             @RequestBody @Valid ModelGenerateStreamRequest modelGenerateStreamRequest, HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(modelGenerateStreamRequest == null, ErrorCode.PARAMS_ERROR, "请求参数不能为空");
-        ModelGenerateRequest modelGenerateRequest = new ModelGenerateRequest();
-        BeanUtils.copyProperties(modelGenerateStreamRequest, modelGenerateRequest);
-
-        // 计算请求签名，实现幂等性
-        String requestSignature = DigestUtil.sha256Hex(JSONUtil.toJsonStr(modelGenerateStreamRequest));
-        Model3D existing = model3DService.getByRequestSignature(requestSignature);
-        if (existing != null && "success".equals(existing.getStatus())) {
-            Model3DVO vo = model3DService.getModel3DVO(existing);
-            return Flux.just(ServerSentEvent.<Model3DVO>builder()
-                    .data(vo)
-                    .event("progress")
-                    .build());
-        }
+        // 在请求入口解析一次登录用户，之后随生成流传递
+        UserPrincipal principal = UserPrincipal.of(userService.getLoginUser(request));
 
-        return tripo3DService.generateModelFromText(modelGenerateRequest)
-                .publishOn(tripoBlockingScheduler)
-                .flatMapMany(response -> {
-                    String taskId = response.getTaskId();
-
-                    // 创建轮询流，每5秒检查一次状态
-                    return Flux.interval(Duration.ofSeconds(5))
-                            .flatMap(tick -> tripo3DService.checkTaskStatus(taskId))
-                            .publishOn(tripoBlockingScheduler)
-                            .map(statusResponse -> {
-                                // 保存或更新模型数据，传递用户的实际提示词
-                                Model3D model3D = model3DService.saveOrUpdateModelFromText(statusResponse,
-                                        modelGenerateStreamRequest.getPrompt(), requestSignature, request);
-                                // 转换为VO对象
-                                return model3DService.getModel3DVO(model3D);
-                            })
-                            .takeUntil(model3DVO -> {
-                                String status = model3DVO.getStatus();
-                                return "success".equals(status) || "failed".equals(status) ||
-                                        "banned".equals(status) || "expired".equals(status) ||
-                                        "cancelled".equals(status);
-                            })
-                            .map(model3DVO -> ServerSentEvent.<Model3DVO>builder()
-                                    .data(model3DVO)
-                                    .event("progress")
-                                    .build());
-                })
+        return submitTextGeneration(modelGenerateStreamRequest, principal)
                 .onErrorResume(e -> {
                     log.error("文生模型流式生成过程中发生错误: {}", e.getMessage(), e);
-                    // 创建错误响应的VO对象
-                    Model3DVO errorVO = new Model3DVO();
-                    errorVO.setStatus("failed");
-                    errorVO.setProgress(0);
-
-                    return Flux.just(ServerSentEvent.<Model3DVO>builder()
-                            .event("error")
-                            .data(errorVO)
-                            .build());
+                    return Flux.just(errorEvent(e));
                 });
     }
 
 
     /**
-     * 使用SSE实时推送3D模型生成进度，并保存模型数据
+     * 先流式增强提示词（augment 事件），增强完成后提交生成任务并实时推送进度（progress 事件）
      */
     @PostMapping(value = "/generate-stream-augmented", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<Model3DVO>> generateModelWithAugmentedPromptProgress(
             @RequestBody @Valid ModelGenerateStreamRequest modelGenerateStreamRequest, HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(modelGenerateStreamRequest == null, ErrorCode.PARAMS_ERROR, "请求参数不能为空");
-        // 使用增强的 prompt
+        Long appId = modelGenerateStreamRequest.getAppId();
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 错误");
+        // 在请求入口解析一次登录用户，之后随生成流传递
+        UserPrincipal principal = UserPrincipal.of(userService.getLoginUser(request));
         String prompt = modelGenerateStreamRequest.getPrompt();
-        String augmentedPrompt = aiGeneratorFacade.generatePrompt(1L, prompt, ObjectGenTypeEnum.PBR);
-        ThrowUtils.throwIf(augmentedPrompt == null, ErrorCode.SYSTEM_ERROR, "生成增强prompt失败");
-        modelGenerateStreamRequest.setPrompt(augmentedPrompt);
-        ModelGenerateRequest modelGenerateRequest = new ModelGenerateRequest();
-        BeanUtils.copyProperties(modelGenerateStreamRequest, modelGenerateRequest);
+        StringBuilder augmentedPrompt = new StringBuilder();
 
-        // 计算请求签名，实现幂等性（增强后提示词）
-        String requestSignature = DigestUtil.sha256Hex(JSONUtil.toJsonStr(modelGenerateStreamRequest));
-        Model3D existing = model3DService.getByRequestSignature(requestSignature);
-        if (existing != null && "success".equals(existing.getStatus())) {
-            Model3DVO vo = model3DService.getModel3DVO(existing);
-            return Flux.just(ServerSentEvent.<Model3DVO>builder()
-                    .data(vo)
-                    .event("progress")
-                    .build());
-        }
+        // 流式增强提示词，增强内容放在 prompt 字段中实时推送给前端，不占用请求线程
+        Flux<String> augmentChunks = Flux.defer(() -> aiGeneratorFacade.generatePromptStream(appId, prompt, ObjectGenTypeEnum.PBR))
+                .doOnNext(augmentedPrompt::append);
+        Flux<ServerSentEvent<Model3DVO>> augmentEvents = SseChunkCoalescer.coalesce(augmentChunks, "augment", chunk -> {
+            Model3DVO augmentVO = new Model3DVO();
+            augmentVO.setPrompt(chunk);
+            return augmentVO;
+        });
+        // 增强完成后再使用增强后的提示词提交生成任务
+        Flux<ServerSentEvent<Model3DVO>> generationEvents = Flux.defer(() -> {
+            ThrowUtils.throwIf(StrUtil.isBlank(augmentedPrompt), ErrorCode.SYSTEM_ERROR, "生成增强prompt失败");
+            modelGenerateStreamRequest.setPrompt(augmentedPrompt.toString());
+            return submitTextGeneration(modelGenerateStreamRequest, principal);
+        });
 
-        return tripo3DService.generateModelFromText(modelGenerateRequest)
-                .publishOn(tripoBlockingScheduler)
-                .flatMapMany(response -> {
-                    String taskId = response.getTaskId();
-
-                    // 创建轮询流，每5秒检查一次状态
-                    return Flux.interval(Duration.ofSeconds(5))
-                            .flatMap(tick -> tripo3DService.checkTaskStatus(taskId))
-                            .publishOn(tripoBlockingScheduler)
-                            .map(statusResponse -> {
-                                // 保存或更新模型数据
-                                Model3D model3D = model3DService.saveOrUpdateModelFromText(statusResponse, augmentedPrompt, requestSignature, request);
-                                // 转换为VO对象
-                                return model3DService.getModel3DVO(model3D);
-                            })
-                            .takeUntil(model3DVO -> {
-                                String status = model3DVO.getStatus();
-                                return "success".equals(status) || "failed".equals(status) ||
-                                        "banned".equals(status) || "expired".equals(status) ||
-                                        "cancelled".equals(status);
-                            })
-                            .map(model3DVO -> ServerSentEvent.<Model3DVO>builder()
-                                    .data(model3DVO)
-                                    .event("progress")
-                                    .build());
-                })
+        return Flux.concat(augmentEvents, generationEvents)
                 .onErrorResume(e -> {
                     log.error("增强文生模型流式生成过程中发生错误: {}", e.getMessage(), e);
-                    // 创建错误响应的VO对象
-                    Model3DVO errorVO = new Model3DVO();
-                    errorVO.setStatus("failed");
-                    errorVO.setProgress(0);
-
-                    return Flux.just(ServerSentEvent.<Model3DVO>builder()
-                            .event("error")
-                            .data(errorVO)
-                            .build());
+                    return Flux.just(errorEvent(e));
                 });
     }
 
@@ -221,59 +193,217 @@ public class AppController {
             HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(picture == null, ErrorCode.PARAMS_ERROR, "请求参数不能为空");
-        // 校验图片
-        appService.validPicture(picture);
-        // 获取图片类型
-        String pictureType = appService.getPictureType(picture);
-        // 上传图片到云存储
-        UploadFileTypeEnum imageType = UploadFileTypeEnum.USER_UPLOADED;
+        // 在请求入口解析一次登录用户，之后随生成流传递
+        UserPrincipal principal = UserPrincipal.of(userService.getLoginUser(request));
+        // 图片不超过 2M，读入内存后同时用于校验、上传 Tripo3D 和归档到云存储
+        byte[] pictureBytes;
+        try {
+            pictureBytes = picture.getBytes();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "读取图片失败");
+        }
+        // 校验图片，只识别一次格式和尺寸，后续复用
+        ImageInfo pictureInfo = appService.validPicture(picture, pictureBytes);
+        String pictureType = pictureInfo.getFormat().getMimeType();
+        String originalFilename = picture.getOriginalFilename();
+        // 超过 Tripo3D 使用分辨率的图片缩小后再上传，归档仍保存原图
+        NormalizedImage tripoImage = imageIntake.normalize(pictureBytes, pictureInfo);
+        String tripoFileName = "image." + tripoImage.getFormat().getValue();
 
         ImageToModelRequest imageToModelRequest = new ImageToModelRequest();
         BeanUtils.copyProperties(imageGenerateStreamRequest, imageToModelRequest);
 
-        // 将可能阻塞的图片上传放到自定义线程池中执行
-        return Mono.fromCallable(() -> appService.uploadFile(picture, imageType))
-                .subscribeOn(tripoBlockingScheduler)
-                .doOnNext(uploadedPictureUrl -> log.info("开始图片转模型任务，图片URL: {}, 类型: {}", uploadedPictureUrl, pictureType))
-                .flatMapMany(uploadedPictureUrl -> 
-                    tripo3DService.generateModelFromImage(uploadedPictureUrl, pictureType, imageToModelRequest)
-                        .publishOn(tripoBlockingScheduler)
-                        .flatMapMany(response -> {
-                            String taskId = response.getTaskId();
-                            log.info("图片转模型任务已创建，任务ID: {}", taskId);
-                            // 创建轮询流，每5秒检查一次状态
-                            return Flux.interval(Duration.ofSeconds(5))
-                                    .flatMap(tick -> tripo3DService.checkTaskStatus(taskId))
-                                    .publishOn(tripoBlockingScheduler)
-                                    .map(statusResponse -> {
-                                        // 保存或更新模型数据，使用专门的图片转模型方法
-                                        Model3D model3D = model3DService.saveOrUpdateModelFromImage(statusResponse, uploadedPictureUrl, request);
-                                        // 转换为VO对象
-                                        return model3DService.getModel3DVO(model3D);
-                                    })
-                                    .takeUntil(model3DVO -> {
-                                        String status = model3DVO.getStatus();
-                                        return "success".equals(status) || "failed".equals(status) ||
-                                                "banned".equals(status) || "expired".equals(status) ||
-                                                "cancelled".equals(status);
-                                    })
-                                    .map(model3DVO -> ServerSentEvent.<Model3DVO>builder()
-                                            .data(model3DVO)
-                                            .event("progress")
-                                            .build());
-                        })
-                )
+        // 归档到云存储不在生成的关键路径上，失败时任务照常进行，只是不记录原图地址
+        Mono<Optional<String>> archive = blockingResourceLimiter.mono(BlockingResource.COS,
+                        () -> Optional.of(appService.uploadStream(new ByteArrayInputStream(pictureBytes), pictureBytes.length,
+                                pictureType, originalFilename, UploadFileTypeEnum.USER_UPLOADED)))
+                .onErrorResume(e -> {
+                    log.error("图片归档到云存储失败: {}", e.getMessage(), e);
+                    return Mono.just(Optional.empty());
+                });
+        // 图片直接上传 Tripo3D，与归档并行进行，不再从云存储下载
+        Mono<ModelGenerateResponse> generation = tripo3DService.generateModelFromImageBytes(tripoImage.getBytes(),
+                tripoFileName, tripoImage.getFormat().getMimeType(), imageToModelRequest);
+        log.info("开始图片转模型任务，图片: {}, 类型: {}", originalFilename, pictureType);
+
+        return Mono.zip(generation, archive)
+                .flatMapMany(tuple -> {
+                    String taskId = tuple.getT1().getTaskId();
+                    String uploadedPictureUrl = tuple.getT2().orElse(null);
+                    log.info("图片转模型任务已创建，任务ID: {}，图片URL: {}", taskId, uploadedPictureUrl);
+                    String qualityKey = AdaptivePollScheduler.qualityKey(imageToModelRequest.getTexture_quality(),
+                            imageToModelRequest.getGeometry_quality());
+                    // 先写入模型记录并启动后台跟踪，客户端断开后任务仍会跟踪到终态并提交资源转存
+                    return blockingResourceLimiter.mono(BlockingResource.MYSQL,
+                                    () -> model3DService.createQueuedImageModel(taskId, uploadedPictureUrl, principal))
+                            .doOnNext(model3D -> taskProgressTracker.trackInBackground(taskId, qualityKey))
+                            // 订阅共享轮询流，使用专门的图片转模型方法保存或更新模型数据
+                            .thenMany(Flux.defer(() -> streamTaskProgress(taskId, qualityKey,
+                                    statusResponse -> model3DService.saveOrUpdateModelFromImage(statusResponse,
+                                            uploadedPictureUrl, principal))));
+                })
                 .onErrorResume(e -> {
                     log.error("图片转模型流式生成过程中发生错误: {}", e.getMessage(), e);
-                    // 创建错误响应的VO对象
-                    Model3DVO errorVO = new Model3DVO();
-                    errorVO.setStatus("failed");
-                    errorVO.setProgress(0);
-
-                    return Flux.just(ServerSentEvent.<Model3DVO>builder()
-                            .event("error")
-                            .data(errorVO)
-                            .build());
+                    return Flux.just(errorEvent(e));
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * 按请求签名复用已成功的结果，否则提交文生模型任务并推送任务进度
+     *
+     * @param modelGenerateStreamRequest 生成请求，提示词为最终提交给 Tripo 的内容
+     * @param principal                  登录用户
+     * @return SSE 进度事件流
+     */
+    private Flux<ServerSentEvent<Model3DVO>> submitTextGeneration(ModelGenerateStreamRequest modelGenerateStreamRequest,
+                                                                  UserPrincipal principal) {
+        ModelGenerateRequest modelGenerateRequest = new ModelGenerateRequest();
+        BeanUtils.copyProperties(modelGenerateStreamRequest, modelGenerateRequest);
+        String prompt = modelGenerateStreamRequest.getPrompt();
+
+        // 计算请求签名，实现幂等性
+        String requestSignature = DigestUtil.sha256Hex(JSONUtil.toJsonStr(modelGenerateStreamRequest));
+        String qualityKey = AdaptivePollScheduler.qualityKey(modelGenerateStreamRequest.getTexture_quality(),
+                modelGenerateStreamRequest.getGeometry_quality());
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL,
+                        () -> Optional.ofNullable(model3DService.getByRequestSignature(requestSignature)))
+                .flatMapMany(existing -> {
+                    if (existing.isPresent() && TaskStatusEnum.SUCCESS.getValue().equals(existing.get().getStatus())) {
+                        return Flux.just(toProgressEvent(model3DService.getModel3DVO(existing.get())));
+                    }
+                    // 同一用户的相同请求并发到达时只创建一个任务，后到的请求订阅同一任务
+                    return generationFlightManager.join(requestSignature, prompt, principal, qualityKey,
+                                    () -> tripo3DService.generateModelFromText(modelGenerateRequest).map(ModelGenerateResponse::getTaskId))
+                            // 订阅共享轮询流，保存或更新模型数据，传递实际提交的提示词；
+                            // 合并的请求只刷新创建者写入的记录，记录不可见时不推送该次状态
+                            .flatMapMany(flight -> streamTaskProgress(flight.getTaskId(), qualityKey,
+                                    flight.isLeader()
+                                            ? statusResponse -> model3DService.saveOrUpdateModelFromText(statusResponse,
+                                                    prompt, requestSignature, principal)
+                                            : model3DService::refreshModelStatus));
+                });
+    }
+
+    /**
+     * 订阅任务的共享轮询流，持久化每次状态并转换为 SSE 进度事件
+     *
+     * @param taskId     任务ID
+     * @param qualityKey 质量档位，用于自适应轮询
+     * @param persister  状态持久化逻辑
+     * @return SSE 进度事件流，任务进入终态后结束
+     */
+    private Flux<ServerSentEvent<Model3DVO>> streamTaskProgress(String taskId, String qualityKey,
+                                                                Function<TaskStatusResponse, Model3D> persister) {
+        return taskPollManager.watch(taskId, qualityKey)
+                // 在 MySQL 舱壁中持久化，并转换为VO对象
+                .concatMap(statusResponse -> blockingResourceLimiter.mono(BlockingResource.MYSQL,
+                        () -> model3DService.getModel3DVO(persister.apply(statusResponse))))
+                .takeUntil(model3DVO -> TaskStatusEnum.isTerminal(model3DVO.getStatus()))
+                // Tripo 任务已成功但资源仍在转存时，继续等待转存结果再结束
+                .concatMap(model3DVO -> TaskStatusEnum.FINALIZING.getValue().equals(model3DVO.getStatus())
+                        ? Flux.just(model3DVO).concatWith(modelFinalizeWorker.awaitFinalized(taskId, FINALIZE_WAIT_TIMEOUT)
+                                .map(model3DService::getModel3DVO))
+                        : Flux.just(model3DVO))
+                .map(this::toProgressEvent);
+    }
+
+    /**
+     * 重新连接已有任务的进度流
+     * 立即回放最新的已知状态，之后跟随共享轮询推送；携带 Last-Event-ID 时跳过客户端已收到的事件。
+     * 只会复用已有任务的状态轮询，不会创建新的生成任务
+     */
+    @GetMapping(value = "/task/{taskId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Model3DVO>> reattachTaskStream(@PathVariable String taskId,
+                                                               @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(StrUtil.isBlank(taskId), ErrorCode.PARAMS_ERROR, "任务ID不能为空");
+        Model3D model3D = model3DService.getByTaskId(taskId);
+        ThrowUtils.throwIf(model3D == null, ErrorCode.NOT_FOUND_ERROR, "任务不存在");
+        // 权限校验：只有管理员或任务创建者可以查看
+        User loginUser = userService.getLoginUser(request);
+        if (!UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole()) && !model3D.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限查看该任务");
+        }
+
+        Model3DVO latest = model3DService.getModel3DVO(model3D);
+        Flux<Model3DVO> updates;
+        if (TaskStatusEnum.isTerminal(latest.getStatus())) {
+            updates = Flux.just(latest);
+        } else if (TaskStatusEnum.FINALIZING.getValue().equals(latest.getStatus())) {
+            updates = Flux.just(latest).concatWith(modelFinalizeWorker.awaitFinalized(taskId, FINALIZE_WAIT_TIMEOUT)
+                    .map(model3DService::getModel3DVO));
+        } else {
+            updates = Flux.just(latest).concatWith(streamTaskProgress(taskId, AdaptivePollScheduler.DEFAULT_QUALITY_KEY,
+                            model3DService::refreshModelStatus)
+                    .map(ServerSentEvent::data));
+        }
+        // 事件 id 随状态和进度单调递增，只推送比客户端已收到的更新的事件
+        AtomicLong lastSentId = new AtomicLong(NumberUtil.parseLong(lastEventId, -1L));
+        return updates
+                .filter(model3DVO -> {
+                    long eventId = progressEventId(model3DVO);
+                    if (eventId <= lastSentId.get()) {
+                        return false;
+                    }
+                    lastSentId.set(eventId);
+                    return true;
+                })
+                .map(this::toProgressEvent)
+                .onErrorResume(e -> {
+                    log.error("任务 {} 重连进度流过程中发生错误: {}", taskId, e.getMessage(), e);
+                    return Flux.just(errorEvent(e));
+                });
+    }
+
+    /**
+     * 错误事件，舱壁已满或线程池拒绝时标记为可重试，并通过 SSE retry 字段给出重连间隔
+     */
+    private static ServerSentEvent<Model3DVO> errorEvent(Throwable e) {
+        Model3DVO errorVO = new Model3DVO();
+        errorVO.setStatus("failed");
+        errorVO.setProgress(0);
+        ServerSentEvent.Builder<Model3DVO> builder = ServerSentEvent.<Model3DVO>builder().event("error");
+        if (isOverload(e)) {
+            errorVO.setRetryable(true);
+            errorVO.setRetryAfterMs(OVERLOAD_RETRY_AFTER.toMillis());
+            builder.retry(OVERLOAD_RETRY_AFTER);
+        }
+        return builder.data(errorVO).build();
+    }
+
+    private static boolean isOverload(Throwable e) {
+        Throwable cause = Exceptions.unwrap(e);
+        if (cause instanceof RejectedExecutionException) {
+            return true;
+        }
+        return cause instanceof BusinessException businessException
+                && businessException.getCode() == ErrorCode.TOO_MANY_REQUEST_ERROR.getCode();
+    }
+
+    private ServerSentEvent<Model3DVO> toProgressEvent(Model3DVO model3DVO) {
+        return ServerSentEvent.<Model3DVO>builder()
+                .id(String.valueOf(progressEventId(model3DVO)))
+                .data(model3DVO)
+                .event("progress")
+                .build();
+    }
+
+    /**
+     * 进度事件 id：状态阶段 * 1000 + 进度，任务推进过程中单调递增
+     */
+    private static long progressEventId(Model3DVO model3DVO) {
+        String status = model3DVO.getStatus();
+        int stage;
+        if (TaskStatusEnum.isTerminal(status)) {
+            stage = 3;
+        } else if (TaskStatusEnum.FINALIZING.getValue().equals(status)) {
+            stage = 2;
+        } else if (TaskStatusEnum.RUNNING.getValue().equals(status)) {
+            stage = 1;
+        } else {
+            stage = 0;
+        }
+        int progress = model3DVO.getProgress() == null ? 0 : model3DVO.getProgress();
+        return stage * 1000L + progress;
+    }
+}
@@ -0,0 +1,20 @@
+package com.qiniuyun.aibased3dmodelgen.exception;
+
+import lombok.Getter;
+
+/**
+ * Tripo3D 拒绝请求（4xx），请求本身有误，重试同样的请求不会成功
+ */
+@Getter
+public class TripoClientException extends BusinessException {
+
+    /**
+     * HTTP 状态码
+     */
+    private final int statusCode;
+
+    public TripoClientException(int statusCode, String message) {
+        super(ErrorCode.OPERATION_ERROR, message);
+        this.statusCode = statusCode;
+    }
+}
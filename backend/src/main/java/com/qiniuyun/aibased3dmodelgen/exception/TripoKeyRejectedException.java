@@ -0,0 +1,11 @@
+package com.qiniuyun.aibased3dmodelgen.exception;
+
+/**
+ * Tripo3D API Key 鉴权失败或额度不足，可以换一个 Key 重试
+ */
+public class TripoKeyRejectedException extends BusinessException {
+
+    public TripoKeyRejectedException(String message) {
+        super(ErrorCode.OPERATION_ERROR, message);
+    }
+}
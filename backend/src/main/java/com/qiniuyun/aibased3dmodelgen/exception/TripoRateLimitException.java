@@ -0,0 +1,22 @@
+package com.qiniuyun.aibased3dmodelgen.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Tripo3D 返回 429 限流
+ */
+@Getter
+public class TripoRateLimitException extends BusinessException {
+
+    /**
+     * 上游建议的重试等待时间
+     */
+    private final Duration retryAfter;
+
+    public TripoRateLimitException(String message, Duration retryAfter) {
+        super(ErrorCode.TOO_MANY_REQUEST_ERROR, message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.qiniuyun.aibased3dmodelgen.exception;
+
+/**
+ * Tripo3D 服务端错误（5xx）或下载资源时的网络错误，属于可重试的临时故障
+ */
+public class TripoServerException extends BusinessException {
+
+    public TripoServerException(String message) {
+        super(ErrorCode.SYSTEM_ERROR, message);
+    }
+}
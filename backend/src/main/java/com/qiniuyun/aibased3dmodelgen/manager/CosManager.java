@@ -1,13 +1,54 @@
 package com.qiniuyun.aibased3dmodelgen.manager;
 
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.AbortMultipartUploadRequest;
+import com.qcloud.cos.model.CompleteMultipartUploadRequest;
+import com.qcloud.cos.model.InitiateMultipartUploadRequest;
+import com.qcloud.cos.model.ListMultipartUploadsRequest;
+import com.qcloud.cos.model.ListPartsRequest;
+import com.qcloud.cos.model.MultipartUpload;
+import com.qcloud.cos.model.MultipartUploadListing;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartETag;
+import com.qcloud.cos.model.PartListing;
+import com.qcloud.cos.model.PartSummary;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
+import com.qcloud.cos.model.UploadPartRequest;
 import com.qiniuyun.aibased3dmodelgen.config.CosClientConfig;
+import com.qiniuyun.aibased3dmodelgen.config.CosMultipartConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Cos 对象存储管理器
@@ -22,6 +63,17 @@ public class CosManager {
     @Resource
     private CosClientConfig cosClientConfig;
 
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    @Resource
+    private CosMultipartConfig cosMultipartConfig;
+
+    /**
+     * 计算分片 MD5 时的读缓冲区大小
+     */
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
 
     /**
      * 上传对象
@@ -32,7 +84,7 @@ public class CosManager {
      */
     public PutObjectResult putObject(String key, File file) {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
-        return cosClient.putObject(putObjectRequest);
+        return blockingResourceLimiter.call(BlockingResource.COS, () -> cosClient.putObject(putObjectRequest));
     }
 
     /**
@@ -43,6 +95,9 @@ public class CosManager {
      * @return
      */
     public String uploadFile(String key, File file) {
+        if (isMultipart(file.length())) {
+            return multipartUpload(key, file).block();
+        }
         PutObjectResult result = putObject(key, file);
         if (result != null) {
             String url = String.format("%s%s", cosClientConfig.getHost(), key);
@@ -54,4 +109,342 @@ public class CosManager {
         }
     }
 
+    /**
+     * 以流的方式上传对象，内容长度已知时 SDK 边读边传，不会把整个文件读入内存
+     *
+     * @param key           对象键
+     * @param inputStream   输入流
+     * @param contentLength 内容长度
+     * @param contentType   内容类型，可为空
+     * @return
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, long contentLength, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        if (contentType != null) {
+            objectMetadata.setContentType(contentType);
+        }
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata);
+        return blockingResourceLimiter.call(BlockingResource.COS, () -> cosClient.putObject(putObjectRequest));
+    }
+
+    /**
+     * 以流的方式上传到 COS 并返回访问 URL
+     *
+     * @param key
+     * @param inputStream
+     * @param contentLength
+     * @param contentType
+     * @return
+     */
+    public String uploadStream(String key, InputStream inputStream, long contentLength, String contentType) {
+        if (isMultipart(contentLength)) {
+            return multipartUpload(key, inputStream, contentLength, contentType);
+        }
+        PutObjectResult result = putObject(key, inputStream, contentLength, contentType);
+        if (result != null) {
+            String url = String.format("%s%s", cosClientConfig.getHost(), key);
+            log.info("流式上传到 COS 成功：{} 字节 -> {}", contentLength, url);
+            return url;
+        } else {
+            log.error("流式上传到 COS 失败：{}，返回结果为空", key);
+            return null;
+        }
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param key 对象键
+     */
+    public void deleteObject(String key) {
+        blockingResourceLimiter.call(BlockingResource.COS, () -> {
+            cosClient.deleteObject(cosClientConfig.getBucket(), key);
+            return null;
+        });
+    }
+
+    /**
+     * 放弃对象所有未完成的分片上传，释放已上传的分片
+     *
+     * @param key 对象键
+     */
+    public void abortUnfinishedUploads(String key) {
+        blockingResourceLimiter.call(BlockingResource.COS, () -> {
+            for (MultipartUpload upload : listUnfinishedUploads(key)) {
+                cosClient.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(cosClientConfig.getBucket(), key, upload.getUploadId()));
+                log.info("已放弃未完成的分片上传：{}，uploadId: {}", key, upload.getUploadId());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 异步上传文件到 COS，大文件使用分片上传
+     *
+     * @param key  对象键
+     * @param file 本地文件
+     * @return 访问 URL
+     */
+    public Mono<String> uploadFileAsync(String key, File file) {
+        if (isMultipart(file.length())) {
+            return multipartUpload(key, file);
+        }
+        return blockingResourceLimiter.mono(BlockingResource.COS, () -> uploadFile(key, file));
+    }
+
+    /**
+     * 该大小的文件是否使用分片上传
+     */
+    public boolean isMultipart(long contentLength) {
+        return contentLength >= cosMultipartConfig.getThreshold().toBytes();
+    }
+
+    /**
+     * 分片上传本地文件，多个分片并行上传，每个分片在 COS 资源许可内执行；
+     * 上传失败时保留已上传的分片，再次上传同一对象时只上传缺少或内容不一致的分片
+     *
+     * @param key  对象键
+     * @param file 本地文件
+     * @return 访问 URL
+     */
+    public Mono<String> multipartUpload(String key, File file) {
+        String bucket = cosClientConfig.getBucket();
+        long length = file.length();
+        long partSize = cosMultipartConfig.getPartSize().toBytes();
+        int partCount = partCount(length, partSize);
+        return blockingResourceLimiter.mono(BlockingResource.COS, () -> prepareMultipartUpload(key, null))
+                .flatMap(upload -> Flux.range(1, partCount)
+                        .flatMap(partNumber -> {
+                            long offset = (partNumber - 1) * partSize;
+                            long size = Math.min(partSize, length - offset);
+                            return blockingResourceLimiter.mono(BlockingResource.COS,
+                                            () -> upload.reuse(partNumber, size, () -> md5Hex(file, offset, size)))
+                                    .switchIfEmpty(uploadPart(() -> new UploadPartRequest()
+                                            .withBucketName(bucket)
+                                            .withKey(key)
+                                            .withUploadId(upload.uploadId)
+                                            .withPartNumber(partNumber)
+                                            .withFile(file)
+                                            .withFileOffset(offset)
+                                            .withPartSize(size)));
+                        }, cosMultipartConfig.getParallelism())
+                        .collectSortedList(Comparator.comparingInt(PartETag::getPartNumber))
+                        .flatMap(partETags -> blockingResourceLimiter.mono(BlockingResource.COS,
+                                () -> cosClient.completeMultipartUpload(
+                                        new CompleteMultipartUploadRequest(bucket, key, upload.uploadId, partETags)))))
+                .map(result -> {
+                    String url = String.format("%s%s", cosClientConfig.getHost(), key);
+                    log.info("分片上传到 COS 成功：{}，{} 字节，{} 个分片 -> {}", file.getName(), length, partCount, url);
+                    return url;
+                })
+                .doOnError(e -> log.error("分片上传到 COS 失败：{}，已上传的分片保留用于续传", key, e));
+    }
+
+    /**
+     * 分片上传输入流，按顺序读出分片并行上传，不落盘；
+     * 每个分片读入前先占用一个缓冲区名额，上传结束后归还，内存中最多保留 parallelism 个分片。
+     * 上传失败时保留已上传的分片，再次上传同一对象时跳过大小和 MD5 与读出内容一致的分片
+     *
+     * @param key           对象键
+     * @param inputStream   输入流，按顺序读取，不会关闭
+     * @param contentLength 内容长度
+     * @param contentType   内容类型，可为空
+     * @return 访问 URL
+     */
+    public String multipartUpload(String key, InputStream inputStream, long contentLength, String contentType) {
+        String bucket = cosClientConfig.getBucket();
+        long partSize = cosMultipartConfig.getPartSize().toBytes();
+        int partCount = partCount(contentLength, partSize);
+        int parallelism = Math.max(1, cosMultipartConfig.getParallelism());
+        MultipartUploadState upload = blockingResourceLimiter.call(BlockingResource.COS,
+                () -> prepareMultipartUpload(key, contentType));
+        List<PartETag> partETags = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Semaphore buffers = new Semaphore(parallelism);
+        try {
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                int size = (int) Math.min(partSize, contentLength - (partNumber - 1) * partSize);
+                buffers.acquireUninterruptibly();
+                // 等待名额期间已有分片失败时不再读取和上传后续分片
+                if (failure.get() != null) {
+                    buffers.release();
+                    break;
+                }
+                byte[] data;
+                try {
+                    data = readPart(inputStream, size);
+                } catch (RuntimeException e) {
+                    buffers.release();
+                    throw e;
+                }
+                PartETag reused = upload.reuse(partNumber, size, () -> DigestUtil.md5Hex(data));
+                if (reused != null) {
+                    partETags.add(reused);
+                    buffers.release();
+                    continue;
+                }
+                int currentPart = partNumber;
+                uploadPart(() -> new UploadPartRequest()
+                        .withBucketName(bucket)
+                        .withKey(key)
+                        .withUploadId(upload.uploadId)
+                        .withPartNumber(currentPart)
+                        .withInputStream(new ByteArrayInputStream(data))
+                        .withPartSize(size))
+                        .doFinally(signal -> buffers.release())
+                        .subscribe(partETags::add, e -> failure.compareAndSet(null, e));
+            }
+        } finally {
+            // 等待已提交的分片上传结束，失败时已上传的分片保留用于续传
+            buffers.acquireUninterruptibly(parallelism);
+        }
+        if (failure.get() != null) {
+            log.error("分片上传到 COS 失败：{}，已上传的分片保留用于续传", key, failure.get());
+            throw Exceptions.propagate(failure.get());
+        }
+        partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+        blockingResourceLimiter.call(BlockingResource.COS, () -> cosClient.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucket, key, upload.uploadId, partETags)));
+        String url = String.format("%s%s", cosClientConfig.getHost(), key);
+        log.info("分片流式上传到 COS 成功：{} 字节，{} 个分片 -> {}", contentLength, partCount, url);
+        return url;
+    }
+
+    private Mono<PartETag> uploadPart(Supplier<UploadPartRequest> request) {
+        // 每次重试重新构造请求，输入流已被上一次读取
+        return blockingResourceLimiter.mono(BlockingResource.COS, () -> cosClient.uploadPart(request.get()).getPartETag())
+                .retryWhen(Retry.backoff(cosMultipartConfig.getPartRetries(), Duration.ofSeconds(1))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static int partCount(long length, long partSize) {
+        return (int) Math.max(1, (length + partSize - 1) / partSize);
+    }
+
+    private static byte[] readPart(InputStream inputStream, int size) {
+        try {
+            byte[] data = inputStream.readNBytes(size);
+            if (data.length < size) {
+                throw new IOException("数据在第 " + data.length + " 字节提前结束，应为 " + size + " 字节");
+            }
+            return data;
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取待上传数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查找同一对象未完成的分片上传，记录其中已上传的分片；没有时新建分片上传
+     */
+    private MultipartUploadState prepareMultipartUpload(String key, String contentType) {
+        String bucket = cosClientConfig.getBucket();
+        String uploadId = findUnfinishedUpload(key);
+        Map<Integer, PartSummary> uploadedParts = new HashMap<>();
+        if (uploadId == null) {
+            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucket, key);
+            if (contentType != null) {
+                ObjectMetadata objectMetadata = new ObjectMetadata();
+                objectMetadata.setContentType(contentType);
+                request.setObjectMetadata(objectMetadata);
+            }
+            uploadId = cosClient.initiateMultipartUpload(request).getUploadId();
+            return new MultipartUploadState(uploadId, uploadedParts);
+        }
+        ListPartsRequest request = new ListPartsRequest(bucket, key, uploadId);
+        PartListing listing;
+        do {
+            listing = cosClient.listParts(request);
+            for (PartSummary part : listing.getParts()) {
+                uploadedParts.put(part.getPartNumber(), part);
+            }
+            request.withPartNumberMarker(listing.getNextPartNumberMarker());
+        } while (listing.isTruncated());
+        log.info("续传 COS 分片上传：{}，已上传 {} 个分片", key, uploadedParts.size());
+        return new MultipartUploadState(uploadId, uploadedParts);
+    }
+
+    /**
+     * 查找对象最近一次未完成的分片上传
+     */
+    private String findUnfinishedUpload(String key) {
+        MultipartUpload latest = null;
+        for (MultipartUpload upload : listUnfinishedUploads(key)) {
+            if (latest == null || upload.getInitiated() != null && latest.getInitiated() != null
+                    && upload.getInitiated().after(latest.getInitiated())) {
+                latest = upload;
+            }
+        }
+        return latest == null ? null : latest.getUploadId();
+    }
+
+    /**
+     * 列出对象未完成的分片上传
+     */
+    private List<MultipartUpload> listUnfinishedUploads(String key) {
+        // 列举结果中的对象键不带开头的斜杠
+        String objectKey = StrUtil.removePrefix(key, "/");
+        ListMultipartUploadsRequest request = new ListMultipartUploadsRequest(cosClientConfig.getBucket()).withPrefix(objectKey);
+        List<MultipartUpload> uploads = new ArrayList<>();
+        MultipartUploadListing listing;
+        do {
+            listing = cosClient.listMultipartUploads(request);
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                if (objectKey.equals(upload.getKey())) {
+                    uploads.add(upload);
+                }
+            }
+            request.setKeyMarker(listing.getNextKeyMarker());
+            request.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated());
+        return uploads;
+    }
+
+    private static String md5Hex(File file, long offset, long size) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            randomAccessFile.seek(offset);
+            byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+            long remaining = size;
+            while (remaining > 0) {
+                int read = randomAccessFile.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                digest.update(buffer, 0, read);
+                remaining -= read;
+            }
+            return HexUtil.encodeHexStr(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取待上传文件失败");
+        }
+    }
+
+    /**
+     * 分片上传的 uploadId 与已上传的分片
+     */
+    private static class MultipartUploadState {
+
+        private final String uploadId;
+
+        private final Map<Integer, PartSummary> uploadedParts;
+
+        MultipartUploadState(String uploadId, Map<Integer, PartSummary> uploadedParts) {
+            this.uploadId = uploadId;
+            this.uploadedParts = uploadedParts;
+        }
+
+        /**
+         * 已上传的分片大小和 MD5 与本次内容一致时复用，否则返回 null
+         */
+        PartETag reuse(int partNumber, long size, Supplier<String> md5Hex) {
+            PartSummary part = uploadedParts.get(partNumber);
+            if (part == null || part.getSize() != size) {
+                return null;
+            }
+            String eTag = StrUtil.strip(part.getETag(), "\"");
+            return eTag.equalsIgnoreCase(md5Hex.get()) ? new PartETag(partNumber, part.getETag()) : null;
+        }
+    }
 }
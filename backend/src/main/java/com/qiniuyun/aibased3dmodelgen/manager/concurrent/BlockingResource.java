@@ -0,0 +1,22 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+/**
+ * 阻塞调用的下游资源
+ */
+public enum BlockingResource {
+
+    /**
+     * Tripo3D 资源下载等阻塞 HTTP 调用
+     */
+    TRIPO,
+
+    /**
+     * 腾讯云 COS 上传
+     */
+    COS,
+
+    /**
+     * MySQL 读写
+     */
+    MYSQL
+}
@@ -0,0 +1,63 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按下游资源隔离阻塞调用
+ * Tripo、COS、MySQL 各自使用独立的 {@link Bulkhead}，一个下游变慢只会占满它自己的线程和队列，
+ * 不会拖慢其他下游；排队已满的调用直接被拒绝，由上层转换为可重试的错误
+ */
+@Component
+public class BlockingResourceLimiter {
+
+    private final Map<BlockingResource, Bulkhead> bulkheads = new EnumMap<>(BlockingResource.class);
+
+    public BlockingResourceLimiter(MeterRegistry meterRegistry,
+                                   @Value("${blocking-scheduler.mode:platform}") String mode,
+                                   @Value("${blocking-scheduler.limits.tripo:64}") int tripoLimit,
+                                   @Value("${blocking-scheduler.limits.cos:32}") int cosLimit,
+                                   @Value("${blocking-scheduler.limits.mysql:10}") int mysqlLimit,
+                                   @Value("${blocking-scheduler.queues.tripo:256}") int tripoQueue,
+                                   @Value("${blocking-scheduler.queues.cos:128}") int cosQueue,
+                                   @Value("${blocking-scheduler.queues.mysql:512}") int mysqlQueue) {
+        boolean virtual = "virtual".equalsIgnoreCase(mode);
+        bulkheads.put(BlockingResource.TRIPO, new Bulkhead("tripo", tripoLimit, tripoQueue, virtual, meterRegistry));
+        bulkheads.put(BlockingResource.COS, new Bulkhead("cos", cosLimit, cosQueue, virtual, meterRegistry));
+        bulkheads.put(BlockingResource.MYSQL, new Bulkhead("mysql", mysqlLimit, mysqlQueue, virtual, meterRegistry));
+    }
+
+    /**
+     * 在调用线程上、资源许可内同步执行
+     *
+     * @param resource 下游资源
+     * @param supplier 阻塞调用
+     * @return 调用结果
+     */
+    public <T> T call(BlockingResource resource, Supplier<T> supplier) {
+        return bulkheads.get(resource).call(supplier);
+    }
+
+    /**
+     * 在该资源独立的线程上执行，结果为 null 时返回空
+     *
+     * @param resource 下游资源
+     * @param supplier 阻塞调用
+     * @return 调用结果
+     */
+    public <T> Mono<T> mono(BlockingResource resource, Supplier<T> supplier) {
+        return bulkheads.get(resource).mono(supplier);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+}
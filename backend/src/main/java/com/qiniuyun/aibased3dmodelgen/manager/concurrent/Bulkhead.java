@@ -0,0 +1,184 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 单个下游的舱壁隔离
+ * 每个下游有独立的执行线程、并发上限和排队上限，排队已满时直接拒绝，不会回退到调用线程执行；
+ * 同一线程内的嵌套调用直接复用已持有的许可，避免自身死锁
+ */
+public class Bulkhead {
+
+    private final String name;
+
+    private final int maxConcurrent;
+
+    private final int maxQueue;
+
+    private final Semaphore permits;
+
+    /**
+     * 已准入的调用数（执行中 + 排队中）
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    private final ThreadLocal<Integer> heldDepth = ThreadLocal.withInitial(() -> 0);
+
+    private final ExecutorService executor;
+
+    private final Scheduler scheduler;
+
+    private final Timer waitTimer;
+
+    private final Counter rejectedCounter;
+
+    /**
+     * @param name          下游名称
+     * @param maxConcurrent 最大并发数
+     * @param maxQueue      最大排队数
+     * @param virtual       是否使用虚拟线程执行
+     * @param meterRegistry 指标注册表
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, boolean virtual, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.permits = new Semaphore(maxConcurrent, true);
+        // 准入数已经限制了排队长度，线程池队列不会超过 maxQueue
+        this.executor = virtual
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bulkhead-" + name + "-vt-", 1).factory())
+                : new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().daemon().name("bulkhead-" + name + "-", 1).factory());
+        this.scheduler = Schedulers.fromExecutorService(executor, "bulkhead-" + name);
+        Gauge.builder("bulkhead.queue.depth", this, Bulkhead::queueDepth)
+                .description("舱壁排队中的调用数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.active", this, Bulkhead::activeCount)
+                .description("舱壁执行中的调用数")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("bulkhead.wait")
+                .description("舱壁排队等待时间")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .description("舱壁已满被拒绝的调用数")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在调用线程上执行，排队已满时抛出 {@link ErrorCode#TOO_MANY_REQUEST_ERROR}
+     */
+    public <T> T call(Supplier<T> supplier) {
+        if (heldDepth.get() > 0) {
+            return runHeld(supplier);
+        }
+        try (Ticket ticket = admit()) {
+            return ticket.run(supplier);
+        }
+    }
+
+    /**
+     * 在本舱壁的线程上异步执行，排队已满时以 {@link ErrorCode#TOO_MANY_REQUEST_ERROR} 结束
+     */
+    public <T> Mono<T> mono(Supplier<T> supplier) {
+        return Mono.defer(() -> {
+            Ticket ticket = admit();
+            return Mono.fromSupplier(() -> ticket.run(supplier))
+                    .subscribeOn(scheduler)
+                    // 还未执行就被取消时释放名额
+                    .doFinally(signal -> ticket.close());
+        });
+    }
+
+    public void shutdown() {
+        scheduler.dispose();
+        executor.shutdown();
+    }
+
+    int queueDepth() {
+        return Math.max(0, admitted.get() - activeCount());
+    }
+
+    int activeCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    private Ticket admit() {
+        int current = admitted.incrementAndGet();
+        if (current > maxConcurrent + maxQueue) {
+            admitted.decrementAndGet();
+            rejectedCounter.increment();
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, name + " 繁忙，请稍后重试");
+        }
+        return new Ticket(System.nanoTime());
+    }
+
+    private <T> T runHeld(Supplier<T> supplier) {
+        heldDepth.set(heldDepth.get() + 1);
+        try {
+            return supplier.get();
+        } finally {
+            heldDepth.set(heldDepth.get() - 1);
+        }
+    }
+
+    /**
+     * 一次准入，关闭时释放准入名额
+     */
+    private class Ticket implements AutoCloseable {
+
+        private final long admittedNanos;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Ticket(long admittedNanos) {
+            this.admittedNanos = admittedNanos;
+        }
+
+        <T> T run(Supplier<T> supplier) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待 " + name + " 被中断");
+            }
+            waitTimer.record(System.nanoTime() - admittedNanos, TimeUnit.NANOSECONDS);
+            try {
+                return runHeld(supplier);
+            } finally {
+                permits.release();
+                // 在结果发出前释放名额，订阅方收到结果后立即发起的调用不会被误拒
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                admitted.decrementAndGet();
+            }
+        }
+    }
+}
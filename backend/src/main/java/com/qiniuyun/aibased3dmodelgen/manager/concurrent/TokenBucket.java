@@ -0,0 +1,128 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+/**
+ * 令牌桶
+ * 令牌可以透支，透支部分表示已排队的预约，调用方按返回的等待时间延后执行；
+ * 收到上游限流信号时暂停发放并减半速率，之后每次成功调用逐步恢复到配置速率
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000D;
+
+    /**
+     * 限流后速率的下限占配置速率的比例
+     */
+    private static final double MIN_RATE_RATIO = 0.1;
+
+    /**
+     * 每次成功调用恢复的速率占配置速率的比例
+     */
+    private static final double RECOVER_RATIO = 0.05;
+
+    private final double configuredRate;
+
+    private final double capacity;
+
+    private double rate;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    private long pausedUntilNanos;
+
+    /**
+     * @param ratePerSecond 每秒发放的令牌数
+     * @param burst         桶容量，即允许的突发调用数
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System.nanoTime());
+    }
+
+    TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.configuredRate = ratePerSecond;
+        this.rate = ratePerSecond;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+        this.pausedUntilNanos = nowNanos;
+    }
+
+    /**
+     * 预约一个令牌
+     *
+     * @param maxWaitNanos 最长可接受的等待时间
+     * @return 需要等待的纳秒数，超过最长等待时间时返回 -1 且不占用令牌
+     */
+    public long reserve(long maxWaitNanos) {
+        return reserve(maxWaitNanos, System.nanoTime());
+    }
+
+    synchronized long reserve(long maxWaitNanos, long nowNanos) {
+        refill(nowNanos);
+        long waitNanos = Math.max(0, pausedUntilNanos - nowNanos);
+        if (tokens < 1) {
+            waitNanos += (long) ((1 - tokens) / rate * NANOS_PER_SECOND);
+        }
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    /**
+     * 归还一个尚未使用的预约令牌
+     */
+    public synchronized void cancelReservation() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * 上游要求暂停：在指定时间内不发放令牌，并降低速率
+     *
+     * @param pauseNanos 暂停时长
+     */
+    public void throttle(long pauseNanos) {
+        throttle(pauseNanos, System.nanoTime());
+    }
+
+    synchronized void throttle(long pauseNanos, long nowNanos) {
+        refill(nowNanos);
+        pausedUntilNanos = Math.max(pausedUntilNanos, nowNanos + pauseNanos);
+        rate = Math.max(configuredRate * MIN_RATE_RATIO, rate / 2);
+        // 暂停期间不积累令牌，恢复后不会立即突发
+        tokens = Math.min(tokens, 0);
+    }
+
+    /**
+     * 上游配额已用完，在指定时间内暂停发放，但不降低速率
+     *
+     * @param pauseNanos 暂停时长
+     */
+    public synchronized void pause(long pauseNanos) {
+        long nowNanos = System.nanoTime();
+        refill(nowNanos);
+        pausedUntilNanos = Math.max(pausedUntilNanos, nowNanos + pauseNanos);
+        tokens = Math.min(tokens, 0);
+    }
+
+    /**
+     * 调用成功，逐步恢复速率
+     */
+    public synchronized void recover() {
+        rate = Math.min(configuredRate, rate + configuredRate * RECOVER_RATIO);
+    }
+
+    public synchronized double currentRate() {
+        return rate;
+    }
+
+    private void refill(long nowNanos) {
+        long from = Math.max(lastRefillNanos, pausedUntilNanos);
+        if (nowNanos > from) {
+            tokens = Math.min(capacity, tokens + (nowNanos - from) / NANOS_PER_SECOND * rate);
+        }
+        lastRefillNanos = Math.max(lastRefillNanos, nowNanos);
+    }
+}
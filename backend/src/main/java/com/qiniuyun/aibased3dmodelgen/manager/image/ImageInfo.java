@@ -0,0 +1,19 @@
+package com.qiniuyun.aibased3dmodelgen.manager.image;
+
+import com.qiniuyun.aibased3dmodelgen.model.enums.ImageFormatEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 从文件头读取的图片信息
+ */
+@Data
+@AllArgsConstructor
+public class ImageInfo {
+
+    private ImageFormatEnum format;
+
+    private int width;
+
+    private int height;
+}
@@ -0,0 +1,277 @@
+package com.qiniuyun.aibased3dmodelgen.manager.image;
+
+import com.qiniuyun.aibased3dmodelgen.config.ImageIntakeConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.model.enums.ImageFormatEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片校验与缩放
+ * 根据文件头识别格式并读取尺寸，不解码整张图片，在任何网络请求之前拒绝无效文件；
+ * 超过 Tripo3D 实际使用分辨率的图片缩小后重新编码，减少上传数据量和上游处理时间
+ */
+@Component
+@Slf4j
+public class ImageIntake {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final ImageIntakeConfig config;
+
+    public ImageIntake(ImageIntakeConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 校验图片格式和尺寸，JPEG 的尺寸可能在很大的 EXIF 等数据段之后，需要传入完整内容
+     *
+     * @param data 图片内容
+     * @return 图片信息
+     */
+    public ImageInfo inspect(byte[] data) {
+        ImageInfo info = sniff(data);
+        ThrowUtils.throwIf(info == null, ErrorCode.PARAMS_ERROR, "文件格式不支持，仅支持 PNG、JPEG、WEBP 图片");
+        int shortSide = Math.min(info.getWidth(), info.getHeight());
+        int longSide = Math.max(info.getWidth(), info.getHeight());
+        ThrowUtils.throwIf(shortSide < config.getMinDimension(), ErrorCode.PARAMS_ERROR,
+                "图片尺寸过小，边长不能小于" + config.getMinDimension() + "像素");
+        ThrowUtils.throwIf(longSide > config.getMaxSourceDimension(), ErrorCode.PARAMS_ERROR,
+                "图片尺寸过大，边长不能超过" + config.getMaxSourceDimension() + "像素");
+        return info;
+    }
+
+    /**
+     * 校验图片，长边超过目标分辨率时缩小并重新编码；
+     * WEBP 没有内置的编解码器，只校验不缩放
+     *
+     * @param data 图片内容
+     * @return 处理后的图片，不需要缩放时返回原内容
+     */
+    public NormalizedImage normalize(byte[] data) {
+        return normalize(data, inspect(data));
+    }
+
+    /**
+     * 按已校验的图片信息缩放，不再重复识别文件头
+     *
+     * @param data 图片内容
+     * @param info {@link #inspect(byte[])} 返回的图片信息
+     * @return 处理后的图片，不需要缩放时返回原内容
+     */
+    public NormalizedImage normalize(byte[] data, ImageInfo info) {
+        int longSide = Math.max(info.getWidth(), info.getHeight());
+        if (longSide <= config.getTargetDimension() || info.getFormat() == ImageFormatEnum.WEBP) {
+            return new NormalizedImage(data, info.getFormat(), info.getWidth(), info.getHeight(), false);
+        }
+        try {
+            BufferedImage source = decodeSubsampled(data, longSide / config.getTargetDimension());
+            double scale = (double) config.getTargetDimension() / Math.max(source.getWidth(), source.getHeight());
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            boolean hasAlpha = source.getColorModel().hasAlpha();
+            BufferedImage target = new BufferedImage(width, height,
+                    hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = target.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            // 有透明通道的保留 PNG，其他的编码为 JPEG
+            ImageFormatEnum format = hasAlpha ? ImageFormatEnum.PNG : ImageFormatEnum.JPEG;
+            byte[] encoded = encode(target, format);
+            log.info("图片已缩放: {}x{} {} -> {}x{} {}，{} -> {} 字节", info.getWidth(), info.getHeight(),
+                    info.getFormat().getText(), width, height, format.getText(), data.length, encoded.length);
+            return new NormalizedImage(encoded, format, width, height, true);
+        } catch (IOException e) {
+            log.error("图片缩放失败: {}", e.getMessage(), e);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "图片已损坏，无法读取");
+        }
+    }
+
+    /**
+     * 根据文件头识别格式并读取尺寸
+     *
+     * @param data 图片内容或文件头
+     * @return 图片信息，无法识别时返回 null
+     */
+    public static ImageInfo sniff(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (startsWith(data, PNG_SIGNATURE)) {
+            // IHDR 数据块固定在签名之后
+            if (data.length < 24) {
+                return null;
+            }
+            return new ImageInfo(ImageFormatEnum.PNG, int32BigEndian(data, 16), int32BigEndian(data, 20));
+        }
+        if (data.length > 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return sniffJpeg(data);
+        }
+        if (data.length >= 30 && matches(data, 0, "RIFF") && matches(data, 8, "WEBP")) {
+            return sniffWebp(data);
+        }
+        return null;
+    }
+
+    private static ImageInfo sniffJpeg(byte[] data) {
+        int offset = 2;
+        while (offset + 3 < data.length) {
+            if ((data[offset] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[offset + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // 填充字节
+                offset++;
+                continue;
+            }
+            if (marker == 0x01 || marker >= 0xD0 && marker <= 0xD8) {
+                // 没有长度字段的标记
+                offset += 2;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // 到达图像数据仍未找到帧头
+                return null;
+            }
+            int length = int16BigEndian(data, offset + 2);
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF
+                    && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                if (offset + 9 > data.length) {
+                    return null;
+                }
+                return new ImageInfo(ImageFormatEnum.JPEG, int16BigEndian(data, offset + 7), int16BigEndian(data, offset + 5));
+            }
+            offset += 2 + length;
+        }
+        return null;
+    }
+
+    private static ImageInfo sniffWebp(byte[] data) {
+        if (matches(data, 12, "VP8 ")) {
+            // 有损格式：关键帧起始码之后是 14 位的宽高
+            if ((data[23] & 0xFF) != 0x9D || (data[24] & 0xFF) != 0x01 || (data[25] & 0xFF) != 0x2A) {
+                return null;
+            }
+            return new ImageInfo(ImageFormatEnum.WEBP, int16LittleEndian(data, 26) & 0x3FFF,
+                    int16LittleEndian(data, 28) & 0x3FFF);
+        }
+        if (matches(data, 12, "VP8L")) {
+            // 无损格式：签名之后是各 14 位的宽高减一
+            if ((data[20] & 0xFF) != 0x2F) {
+                return null;
+            }
+            int bits = (data[21] & 0xFF) | (data[22] & 0xFF) << 8 | (data[23] & 0xFF) << 16 | (data[24] & 0xFF) << 24;
+            return new ImageInfo(ImageFormatEnum.WEBP, (bits & 0x3FFF) + 1, (bits >>> 14 & 0x3FFF) + 1);
+        }
+        if (matches(data, 12, "VP8X")) {
+            // 扩展格式：画布宽高减一，各 24 位
+            return new ImageInfo(ImageFormatEnum.WEBP, int24LittleEndian(data, 24) + 1, int24LittleEndian(data, 27) + 1);
+        }
+        return null;
+    }
+
+    /**
+     * 解码时按整数倍隔行采样，超大图片不需要完整解码到内存
+     */
+    private static BufferedImage decodeSubsampled(byte[] data, int subsampling) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("没有可用的图片解码器");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, subsampling);
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] encode(BufferedImage image, ImageFormatEnum format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format.getValue()).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format == ImageFormatEnum.JPEG) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(config.getJpegQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(byte[] data, int offset, String ascii) {
+        if (data.length < offset + ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (data[offset + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int int32BigEndian(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+                | (data[offset + 2] & 0xFF) << 8 | data[offset + 3] & 0xFF;
+    }
+
+    private static int int16BigEndian(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 8 | data[offset + 1] & 0xFF;
+    }
+
+    private static int int16LittleEndian(byte[] data, int offset) {
+        return data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int int24LittleEndian(byte[] data, int offset) {
+        return data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8 | (data[offset + 2] & 0xFF) << 16;
+    }
+}
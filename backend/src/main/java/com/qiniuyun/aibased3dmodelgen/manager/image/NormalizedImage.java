@@ -0,0 +1,26 @@
+package com.qiniuyun.aibased3dmodelgen.manager.image;
+
+import com.qiniuyun.aibased3dmodelgen.model.enums.ImageFormatEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 校验并按需缩放后的图片
+ */
+@Getter
+@AllArgsConstructor
+public class NormalizedImage {
+
+    private final byte[] bytes;
+
+    private final ImageFormatEnum format;
+
+    private final int width;
+
+    private final int height;
+
+    /**
+     * 是否经过缩放重新编码
+     */
+    private final boolean resized;
+}
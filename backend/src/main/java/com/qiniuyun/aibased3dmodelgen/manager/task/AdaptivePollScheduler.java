@@ -0,0 +1,237 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import cn.hutool.core.util.StrUtil;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应轮询调度器
+ * 根据任务上报的进度、进度变化速度以及同质量档位的历史完成耗时估算剩余时间，
+ * 任务中段降低轮询频率，接近完成时加快轮询
+ */
+@Component
+@Slf4j
+public class AdaptivePollScheduler {
+
+    /**
+     * 默认质量档位
+     */
+    public static final String DEFAULT_QUALITY_KEY = "standard/standard";
+
+    /**
+     * 进度达到该值后视为即将完成，使用最短轮询间隔
+     */
+    private static final int NEAR_DONE_PROGRESS = 90;
+
+    /**
+     * 下次轮询落在预计剩余时间的比例，越小越积极
+     */
+    private static final double REMAINING_FACTOR = 0.5;
+
+    /**
+     * 指数加权平均的平滑系数
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final Duration minInterval;
+
+    private final Duration maxInterval;
+
+    private final Duration defaultInterval;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer delayTimer;
+
+    /**
+     * 质量档位 -> 历史完成耗时（毫秒，指数加权平均）
+     */
+    private final Map<String, Double> completionMillisByQuality = new ConcurrentHashMap<>();
+
+    public AdaptivePollScheduler(MeterRegistry meterRegistry,
+                                 @Value("${tripo3d.poll.min-interval-ms:1000}") long minIntervalMs,
+                                 @Value("${tripo3d.poll.max-interval-ms:10000}") long maxIntervalMs,
+                                 @Value("${tripo3d.poll.default-interval-ms:5000}") long defaultIntervalMs) {
+        this.meterRegistry = meterRegistry;
+        this.minInterval = Duration.ofMillis(minIntervalMs);
+        this.maxInterval = Duration.ofMillis(maxIntervalMs);
+        this.defaultInterval = Duration.ofMillis(defaultIntervalMs);
+        this.delayTimer = Timer.builder("tripo.poll.delay")
+                .description("自适应轮询选择的下次轮询间隔")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 构造质量档位 key
+     *
+     * @param textureQuality  纹理质量
+     * @param geometryQuality 模型质量
+     * @return 质量档位 key
+     */
+    public static String qualityKey(String textureQuality, String geometryQuality) {
+        return StrUtil.blankToDefault(textureQuality, "standard") + "/" + StrUtil.blankToDefault(geometryQuality, "standard");
+    }
+
+    /**
+     * 为一个新任务创建轮询状态
+     *
+     * @param qualityKey 质量档位 key
+     * @return 轮询状态
+     */
+    public PollState newState(String qualityKey) {
+        return new PollState(StrUtil.blankToDefault(qualityKey, DEFAULT_QUALITY_KEY), System.currentTimeMillis());
+    }
+
+    /**
+     * 计算距下次轮询的间隔
+     */
+    public Duration nextDelay(PollState state) {
+        Duration delay = nextDelay(state, System.currentTimeMillis());
+        delayTimer.record(delay);
+        return delay;
+    }
+
+    Duration nextDelay(PollState state, long nowMillis) {
+        // 还没有任何状态数据，使用默认间隔
+        if (state.pollCount == 0) {
+            return defaultInterval;
+        }
+        if (state.lastProgress >= NEAR_DONE_PROGRESS) {
+            return minInterval;
+        }
+        Long remainingMillis = estimateRemainingMillis(state, nowMillis);
+        if (remainingMillis == null) {
+            return defaultInterval;
+        }
+        long delayMillis = (long) (remainingMillis * REMAINING_FACTOR);
+        return clamp(Duration.ofMillis(delayMillis));
+    }
+
+    /**
+     * 记录一次轮询结果
+     */
+    public void record(PollState state, TaskStatusResponse statusResponse) {
+        record(state, statusResponse, System.currentTimeMillis());
+        Counter.builder("tripo.poll.calls")
+                .description("Tripo3D 任务状态查询次数")
+                .tag("quality", state.qualityKey)
+                .register(meterRegistry)
+                .increment();
+        if (TaskStatusEnum.isTerminal(statusResponse.getStatus())) {
+            complete(state, statusResponse);
+        }
+    }
+
+    void record(PollState state, TaskStatusResponse statusResponse, long nowMillis) {
+        state.pollCount++;
+        if (state.startMillis == state.createdMillis && statusResponse.getData() != null
+                && statusResponse.getData().getCreateTime() > 0) {
+            long createTime = statusResponse.getData().getCreateTime();
+            // 兼容秒/毫秒时间戳
+            state.startMillis = createTime > 1_000_000_000_000L ? createTime : createTime * 1000L;
+        }
+        int progress = statusResponse.getProgress();
+        if (progress > state.lastProgress) {
+            if (state.lastProgressMillis >= 0) {
+                double rate = (double) (progress - state.lastProgress) / Math.max(1, nowMillis - state.lastProgressMillis);
+                state.progressPerMilli = state.progressPerMilli <= 0 ? rate
+                        : EWMA_ALPHA * rate + (1 - EWMA_ALPHA) * state.progressPerMilli;
+            }
+            state.lastProgress = progress;
+            state.lastProgressMillis = nowMillis;
+        } else if (state.lastProgressMillis < 0) {
+            state.lastProgressMillis = nowMillis;
+        }
+    }
+
+    /**
+     * 任务结束，更新历史耗时并上报本任务的轮询次数
+     */
+    private void complete(PollState state, TaskStatusResponse statusResponse) {
+        String status = statusResponse.getStatus();
+        if (TaskStatusEnum.SUCCESS.getValue().equals(status)) {
+            recordCompletion(state.qualityKey, System.currentTimeMillis() - state.startMillis);
+        }
+        DistributionSummary.builder("tripo.poll.calls.per.task")
+                .description("每个任务结束前的状态查询次数")
+                .tag("quality", state.qualityKey)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(state.pollCount);
+        log.info("任务轮询结束，质量档位: {}，状态: {}，查询次数: {}", state.qualityKey, status, state.pollCount);
+    }
+
+    void recordCompletion(String qualityKey, long elapsedMillis) {
+        if (elapsedMillis <= 0) {
+            return;
+        }
+        completionMillisByQuality.merge(qualityKey, (double) elapsedMillis,
+                (old, current) -> EWMA_ALPHA * current + (1 - EWMA_ALPHA) * old);
+    }
+
+    /**
+     * 估算剩余时间，优先使用进度速度，其次使用同质量档位的历史耗时
+     */
+    private Long estimateRemainingMillis(PollState state, long nowMillis) {
+        if (state.progressPerMilli > 0) {
+            double remaining = (100 - state.lastProgress) / state.progressPerMilli;
+            return Math.max(0L, (long) remaining - (nowMillis - state.lastProgressMillis));
+        }
+        Double historyMillis = completionMillisByQuality.get(state.qualityKey);
+        if (historyMillis != null) {
+            return Math.max(0L, historyMillis.longValue() - (nowMillis - state.startMillis));
+        }
+        return null;
+    }
+
+    private Duration clamp(Duration delay) {
+        if (delay.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        if (delay.compareTo(maxInterval) > 0) {
+            return maxInterval;
+        }
+        return delay;
+    }
+
+    /**
+     * 单个任务的轮询状态，只在该任务的轮询流中顺序访问
+     */
+    public static class PollState {
+
+        private final String qualityKey;
+
+        private final long createdMillis;
+
+        private long startMillis;
+
+        private int pollCount;
+
+        private int lastProgress;
+
+        private long lastProgressMillis = -1;
+
+        private double progressPerMilli;
+
+        PollState(String qualityKey, long createdMillis) {
+            this.qualityKey = qualityKey;
+            this.createdMillis = createdMillis;
+            this.startMillis = createdMillis;
+        }
+
+        public int getPollCount() {
+            return pollCount;
+        }
+    }
+}
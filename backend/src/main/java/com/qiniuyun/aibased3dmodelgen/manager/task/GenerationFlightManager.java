@@ -0,0 +1,201 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import cn.hutool.core.util.StrUtil;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserPrincipal;
+import com.qiniuyun.aibased3dmodelgen.model.entity.GenerationFlight;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.GenerationFlightService;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 生成请求单飞管理器
+ * 同一用户相同请求签名的并发请求只创建一个 Tripo 任务，后到的请求订阅先到请求的任务；
+ * 模型记录按用户区分，不同用户的相同请求各自创建任务和记录。
+ * 同一实例内通过内存表合并，跨实例通过 generation_flight 表的唯一约束合并；
+ * 任务结束（含资源转存）后释放签名，之后的相同请求走已有结果或重新生成
+ */
+@Component
+@Slf4j
+public class GenerationFlightManager {
+
+    /**
+     * 跨实例等待占用者写入任务ID的查询间隔
+     */
+    private static final Duration REMOTE_POLL_INTERVAL = Duration.ofMillis(500);
+
+    /**
+     * 跨实例等待占用者创建任务的最长时间
+     */
+    private static final Duration REMOTE_WAIT_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * 等待资源转存完成后再释放签名的最长时间
+     */
+    private static final Duration FINALIZE_WAIT_TIMEOUT = Duration.ofMinutes(10);
+
+    @Resource
+    private GenerationFlightService generationFlightService;
+
+    @Resource
+    private Model3DService model3DService;
+
+    @Resource
+    private TaskProgressTracker taskProgressTracker;
+
+    @Resource
+    private ModelFinalizeWorker modelFinalizeWorker;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    /**
+     * 请求签名:用户ID -> 本实例内的任务ID
+     */
+    private final Map<String, Sinks.One<String>> localFlights = new ConcurrentHashMap<>();
+
+    /**
+     * 加入相同签名的生成请求
+     *
+     * @param requestSignature 请求签名
+     * @param prompt           实际提交的提示词，占用者创建任务后用于写入模型记录
+     * @param principal        登录用户
+     * @param qualityKey       质量档位，用于后台跟踪的自适应轮询
+     * @param taskCreator      创建 Tripo 任务并返回任务ID，只有占用者会调用
+     * @return 任务ID以及当前请求是否为任务的创建者
+     */
+    public Mono<Flight> join(String requestSignature, String prompt, UserPrincipal principal, String qualityKey,
+                             Supplier<Mono<String>> taskCreator) {
+        return Mono.defer(() -> {
+            Long userId = principal.getId();
+            String flightKey = requestSignature + ":" + userId;
+            Sinks.One<String> local = Sinks.one();
+            Sinks.One<String> existing = localFlights.putIfAbsent(flightKey, local);
+            if (existing != null) {
+                log.info("用户 {} 请求签名 {} 已有进行中的任务，合并到该任务", userId, requestSignature);
+                return existing.asMono().map(taskId -> new Flight(taskId, false));
+            }
+            // 本实例的首个请求，再通过数据库唯一约束与其他实例竞争
+            return blockingResourceLimiter.mono(BlockingResource.MYSQL,
+                            () -> generationFlightService.tryAcquire(requestSignature, userId))
+                    .flatMap(acquired -> acquired
+                            ? createTask(requestSignature, prompt, principal, taskCreator)
+                            : awaitRemoteTask(requestSignature, userId).map(taskId -> new Flight(taskId, false)))
+                    .doOnNext(flight -> {
+                        local.tryEmitValue(flight.getTaskId());
+                        releaseWhenFinished(requestSignature, userId, qualityKey, flight,
+                                () -> localFlights.remove(flightKey, local));
+                    })
+                    .doOnError(e -> {
+                        localFlights.remove(flightKey, local);
+                        local.tryEmitError(e);
+                    });
+        });
+    }
+
+    /**
+     * 创建任务并先写入模型记录再公开任务ID，合并的请求和后台跟踪拿到任务ID时记录一定已存在
+     */
+    private Mono<Flight> createTask(String requestSignature, String prompt, UserPrincipal principal,
+                                    Supplier<Mono<String>> taskCreator) {
+        return taskCreator.get()
+                .flatMap(taskId -> blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                    model3DService.createQueuedModel(taskId, prompt, requestSignature, principal);
+                    generationFlightService.bindTask(requestSignature, principal.getId(), taskId);
+                    return new Flight(taskId, true);
+                }))
+                // 创建失败时释放签名，其他实例上等待的请求会随之失败
+                .onErrorResume(e -> releaseSignature(requestSignature, principal.getId()).then(Mono.error(e)));
+    }
+
+    /**
+     * 释放签名，释放失败时签名在过期后自动失效
+     */
+    private Mono<Void> releaseSignature(String requestSignature, Long userId) {
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                    generationFlightService.release(requestSignature, userId);
+                    return true;
+                })
+                .onErrorResume(e -> {
+                    log.warn("释放请求签名 {} 失败: {}", requestSignature, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 等待其他实例上的占用者写入任务ID
+     */
+    private Mono<String> awaitRemoteTask(String requestSignature, Long userId) {
+        log.info("用户 {} 请求签名 {} 已在其他实例创建任务，等待任务ID", userId, requestSignature);
+        return Flux.interval(Duration.ZERO, REMOTE_POLL_INTERVAL)
+                .concatMap(tick -> blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                    GenerationFlight flight = generationFlightService.getByRequestSignature(requestSignature, userId);
+                    ThrowUtils.throwIf(flight == null, ErrorCode.OPERATION_ERROR, "相同请求的生成任务创建失败");
+                    return StrUtil.nullToEmpty(flight.getTaskId());
+                }))
+                .filter(StrUtil::isNotBlank)
+                .next()
+                .timeout(REMOTE_WAIT_TIMEOUT);
+    }
+
+    /**
+     * 独立跟踪任务直到结束并落库，不依赖任何 SSE 连接，结束后释放签名；
+     * 模型记录在创建任务时已写入，任务成功时由刷新提交资源转存
+     */
+    private void releaseWhenFinished(String requestSignature, Long userId, String qualityKey, Flight flight,
+                                     Runnable removeLocal) {
+        String taskId = flight.getTaskId();
+        taskProgressTracker.track(taskId, qualityKey)
+                .filter(statusResponse -> TaskStatusEnum.SUCCESS.getValue().equals(statusResponse.getStatus()))
+                .flatMap(statusResponse -> modelFinalizeWorker.awaitFinalized(taskId, FINALIZE_WAIT_TIMEOUT))
+                .then(Mono.defer(() -> flight.isLeader() ? releaseSignature(requestSignature, userId) : Mono.<Void>empty()))
+                .doFinally(signal -> removeLocal.run())
+                .subscribe(null, e -> {
+                    log.warn("任务 {} 跟踪失败: {}", taskId, e.getMessage());
+                    if (flight.isLeader()) {
+                        releaseSignature(requestSignature, userId).subscribe();
+                    }
+                });
+    }
+
+    /**
+     * 单飞结果
+     */
+    public static class Flight {
+
+        private final String taskId;
+
+        private final boolean leader;
+
+        public Flight(String taskId, boolean leader) {
+            this.taskId = taskId;
+            this.leader = leader;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        /**
+         * 当前请求是否为任务的创建者
+         */
+        public boolean isLeader() {
+            return leader;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import cn.hutool.core.util.StrUtil;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ModelFinalizeJob;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import com.qiniuyun.aibased3dmodelgen.service.ModelFinalizeJobService;
+import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模型资源转存任务执行器
+ * 定时从 model_finalize_job 表领取到期任务，在独立线程池中下载 Tripo 资源并转存 COS，
+ * 与 SSE 轮询流解耦：客户端断开或服务重启都不会丢失转存
+ */
+@Component
+@Slf4j
+public class ModelFinalizeWorker {
+
+    /**
+     * 单次执行的租约时长，超时后任务可被其他实例重新领取
+     */
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    /**
+     * 最大尝试次数
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * 查询任务状态的超时时间
+     */
+    private static final Duration STATUS_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * 等待转存结果时查库的间隔，转存可能在其他实例上执行，本实例收不到完成通知
+     */
+    private static final Duration WAIT_POLL_INTERVAL = Duration.ofSeconds(2);
+
+    @Resource
+    private ModelFinalizeJobService modelFinalizeJobService;
+
+    @Resource
+    private Model3DService model3DService;
+
+    @Resource
+    private Tripo3DService tripo3DService;
+
+    @Resource(name = "finalizeJobExecutor")
+    private ThreadPoolExecutor finalizeJobExecutor;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    /**
+     * 本实例正在执行的任务数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * taskId -> 等待转存结果的订阅者
+     */
+    private final Map<String, Sinks.One<Model3D>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 领取到期任务并提交到线程池，只领取线程池空闲容量内的任务
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void dispatch() {
+        int capacity = finalizeJobExecutor.getMaximumPoolSize() - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+        List<ModelFinalizeJob> jobs;
+        try {
+            jobs = modelFinalizeJobService.listDueJobs(capacity);
+        } catch (Exception e) {
+            log.error("查询资源转存任务失败", e);
+            return;
+        }
+        for (ModelFinalizeJob job : jobs) {
+            if (!modelFinalizeJobService.tryClaim(job, LEASE)) {
+                continue;
+            }
+            inFlight.incrementAndGet();
+            try {
+                finalizeJobExecutor.execute(() -> {
+                    try {
+                        process(job);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (Exception e) {
+                // 提交失败时任务保持 running，租约过期后会被重新领取
+                inFlight.decrementAndGet();
+                log.error("提交资源转存任务失败，任务ID: {}", job.getTaskId(), e);
+            }
+        }
+    }
+
+    /**
+     * 等待任务的资源转存完成
+     *
+     * @param taskId  任务ID
+     * @param timeout 最长等待时间，超时后返回数据库中的当前记录
+     * @return 转存完成（成功或失败）后的模型
+     */
+    public Mono<Model3D> awaitFinalized(String taskId, Duration timeout) {
+        return Mono.defer(() -> {
+            // 先注册再查库，避免错过在两者之间完成的通知
+            Sinks.One<Model3D> sink = waiters.computeIfAbsent(taskId, id -> Sinks.one());
+            // 本实例执行的转存通过通知立即返回，其他实例执行的转存靠定时查库发现
+            Mono<Model3D> polled = Flux.interval(Duration.ZERO, WAIT_POLL_INTERVAL)
+                    .concatMap(tick -> loadModel(taskId)
+                            .onErrorResume(e -> {
+                                log.warn("查询模型转存状态失败，任务ID: {}，{}", taskId, e.getMessage());
+                                return Mono.empty();
+                            }))
+                    .filter(model3D -> !TaskStatusEnum.FINALIZING.getValue().equals(model3D.getStatus()))
+                    .next();
+            return Mono.firstWithValue(sink.asMono(), polled)
+                    .timeout(timeout, loadModel(taskId))
+                    .doFinally(signal -> waiters.remove(taskId, sink));
+        });
+    }
+
+    private Mono<Model3D> loadModel(String taskId) {
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> model3DService.getByTaskId(taskId));
+    }
+
+    private void process(ModelFinalizeJob job) {
+        String taskId = job.getTaskId();
+        log.info("开始执行资源转存任务，任务ID: {}，第 {} 次", taskId, job.getAttempts());
+        try {
+            // 每次执行都重新查询任务状态，Tripo 返回的资源下载地址有时效
+            TaskStatusResponse statusResponse = tripo3DService.checkTaskStatus(taskId).block(STATUS_TIMEOUT);
+            TaskStatusResponse.Output output = statusResponse == null ? null : statusResponse.getOutput();
+            ThrowUtils.throwIf(output == null || StrUtil.isBlank(output.getPbrModel()),
+                    ErrorCode.OPERATION_ERROR, "任务输出为空");
+
+            Tripo3DService.AssetUrls finalUrls = tripo3DService.downloadAndUploadAssets(taskId,
+                    output.getRenderedImage(), output.getPbrModel());
+            Model3D model3D = model3DService.completeFinalization(taskId, finalUrls.getModelUrl(), finalUrls.getImageUrl());
+            modelFinalizeJobService.markSuccess(job);
+            notifyWaiters(taskId, model3D);
+        } catch (Exception e) {
+            log.error("资源转存任务执行失败，任务ID: {}", taskId, e);
+            boolean giveUp = modelFinalizeJobService.markFailure(job, e.getMessage(), MAX_ATTEMPTS);
+            if (giveUp) {
+                log.error("资源转存任务重试 {} 次后放弃，任务ID: {}", MAX_ATTEMPTS, taskId);
+                tripo3DService.discardAssets(taskId);
+                notifyWaiters(taskId, model3DService.failFinalization(taskId));
+            }
+        }
+    }
+
+    private void notifyWaiters(String taskId, Model3D model3D) {
+        Sinks.One<Model3D> sink = waiters.remove(taskId);
+        if (sink == null) {
+            return;
+        }
+        if (model3D != null) {
+            sink.tryEmitValue(model3D);
+        } else {
+            sink.tryEmitEmpty();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.core.row.Db;
+import com.qiniuyun.aibased3dmodelgen.mapper.Model3DMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型进度写缓冲
+ * 在内存中保存生成中任务的最新模型记录，轮询时不再每次查库；
+ * 状态变化由调用方立即落库，仅进度变化时累计到阈值才标记为待写，由定时任务批量写入
+ */
+@Component
+@Slf4j
+public class ModelProgressBuffer {
+
+    /**
+     * 每批写入的条数
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 超过该时间未更新的记录视为已无人跟踪，从内存中移除
+     */
+    private static final long IDLE_TTL_MILLIS = 30 * 60 * 1000L;
+
+    /**
+     * 只有处于这些状态的记录才写入进度，已结束或转存中的记录不会被缓冲中的旧进度覆盖
+     */
+    private static final List<String> LIVE_STATUSES = Arrays.asList(TaskStatusEnum.QUEUED.getValue(),
+            TaskStatusEnum.RUNNING.getValue(), TaskStatusEnum.UNKNOWN.getValue());
+
+    @Value("${tripo3d.persist.progress-step:10}")
+    private int progressStep;
+
+    /**
+     * taskId -> 内存中的任务状态
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 获取内存中的模型记录
+     *
+     * @param taskId 任务ID
+     * @return 模型记录，不在内存中时返回 null
+     */
+    public Model3D get(String taskId) {
+        Entry entry = entries.get(taskId);
+        return entry == null ? null : entry.model3D;
+    }
+
+    /**
+     * 记录已落库的模型状态
+     */
+    public void markPersisted(Model3D model3D) {
+        Entry entry = entries.computeIfAbsent(model3D.getTaskId(), id -> new Entry(model3D));
+        synchronized (entry) {
+            entry.model3D = model3D;
+            entry.persistedProgress = progressOf(model3D);
+            entry.dirty = false;
+            entry.lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 记录只有进度变化的模型状态，进度较上次落库的变化达到阈值时标记为待写
+     */
+    public void offerProgress(Model3D model3D) {
+        Entry entry = entries.computeIfAbsent(model3D.getTaskId(), id -> new Entry(model3D));
+        synchronized (entry) {
+            entry.model3D = model3D;
+            entry.lastAccessMillis = System.currentTimeMillis();
+            if (Math.abs(progressOf(model3D) - entry.persistedProgress) >= progressStep) {
+                entry.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * 任务结束或记录被其他流程修改时移除
+     */
+    public void evict(String taskId) {
+        entries.remove(taskId);
+    }
+
+    /**
+     * 批量写入待写的进度，只更新进度相关字段，不覆盖其他流程写入的状态和地址；
+     * 快照之后记录可能已被移除并由其他流程写入终态，因此按状态条件更新
+     */
+    @Scheduled(fixedDelayString = "${tripo3d.persist.flush-interval-ms:2000}")
+    public void flush() {
+        List<Model3D> pending = new ArrayList<>();
+        List<Entry> flushed = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        entries.forEach((taskId, entry) -> {
+            synchronized (entry) {
+                if (entry.dirty) {
+                    pending.add(Model3D.builder()
+                            .id(entry.model3D.getId())
+                            .progress(entry.model3D.getProgress())
+                            .updateTime(LocalDateTime.now())
+                            .build());
+                    flushed.add(entry);
+                } else if (now - entry.lastAccessMillis > IDLE_TTL_MILLIS) {
+                    entries.remove(taskId, entry);
+                }
+            }
+        });
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            Db.executeBatch(pending, BATCH_SIZE, Model3DMapper.class, (mapper, model3D) ->
+                    mapper.updateByQuery(model3D, QueryWrapper.create()
+                            .eq("id", model3D.getId())
+                            .in("status", LIVE_STATUSES)));
+        } catch (Exception e) {
+            log.error("批量写入任务进度失败，共 {} 条", pending.size(), e);
+            return;
+        }
+        for (int i = 0; i < flushed.size(); i++) {
+            Entry entry = flushed.get(i);
+            int written = progressOf(pending.get(i));
+            synchronized (entry) {
+                entry.persistedProgress = written;
+                // 写入期间进度可能再次变化，只有写入的就是最新进度时才清除待写标记
+                entry.dirty = progressOf(entry.model3D) != written;
+            }
+        }
+        log.debug("批量写入任务进度 {} 条", pending.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private static int progressOf(Model3D model3D) {
+        return model3D.getProgress() == null ? 0 : model3D.getProgress();
+    }
+
+    private static class Entry {
+
+        private Model3D model3D;
+
+        private int persistedProgress;
+
+        private boolean dirty;
+
+        private long lastAccessMillis;
+
+        Entry(Model3D model3D) {
+            this.model3D = model3D;
+            this.persistedProgress = progressOf(model3D);
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+}
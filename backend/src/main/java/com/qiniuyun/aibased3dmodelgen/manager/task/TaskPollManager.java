@@ -0,0 +1,116 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tripo3D 任务轮询管理器
+ * 每个存活的 taskId 只有一条共享轮询流，所有 SSE 订阅者共用同一份状态结果，
+ * 上游调用量只与存活任务数相关，与连接数无关；轮询间隔由 {@link AdaptivePollScheduler} 决定
+ */
+@Component
+@Slf4j
+public class TaskPollManager {
+
+    /**
+     * 最后一个订阅者断开后保留轮询的宽限期，方便客户端快速重连
+     */
+    private static final Duration GRACE_PERIOD = Duration.ofSeconds(30);
+
+    @Resource
+    private Tripo3DService tripo3DService;
+
+    @Resource
+    private AdaptivePollScheduler adaptivePollScheduler;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * taskId -> 共享轮询流
+     */
+    private final Map<String, Flux<TaskStatusResponse>> liveTasks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("tripo.poll.live.tasks", liveTasks, Map::size)
+                .description("正在轮询的任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅任务状态，使用默认质量档位估算轮询间隔
+     *
+     * @param taskId 任务ID
+     * @return 任务状态流，任务进入终态后结束
+     */
+    public Flux<TaskStatusResponse> watch(String taskId) {
+        return watch(taskId, AdaptivePollScheduler.DEFAULT_QUALITY_KEY);
+    }
+
+    /**
+     * 订阅任务状态，同一 taskId 的多个订阅者共享一次上游轮询
+     *
+     * @param taskId     任务ID
+     * @param qualityKey 质量档位，用于参考历史完成耗时
+     * @return 任务状态流，任务进入终态后结束
+     */
+    public Flux<TaskStatusResponse> watch(String taskId, String qualityKey) {
+        return liveTasks.computeIfAbsent(taskId, id -> createSharedPoll(id, qualityKey));
+    }
+
+    /**
+     * 当前正在轮询的任务数
+     */
+    public int liveTaskCount() {
+        return liveTasks.size();
+    }
+
+    private Flux<TaskStatusResponse> createSharedPoll(String taskId, String qualityKey) {
+        log.info("创建任务 {} 的共享轮询，质量档位: {}", taskId, qualityKey);
+        AdaptivePollScheduler.PollState pollState = adaptivePollScheduler.newState(qualityKey);
+        AtomicReference<Flux<TaskStatusResponse>> self = new AtomicReference<>();
+        // 每轮先按调度器给出的间隔等待，再查询一次状态
+        Flux<TaskStatusResponse> shared = Mono.defer(() -> Mono.delay(adaptivePollScheduler.nextDelay(pollState)))
+                .then(Mono.defer(() -> tripo3DService.checkTaskStatus(taskId))
+                        // 查询被本地限流拒绝时跳过这一轮，下一轮再查，不结束所有订阅者的进度流
+                        .onErrorResume(TaskPollManager::isShed, e -> {
+                            log.debug("任务 {} 的状态查询被限流，稍后重试", taskId);
+                            return Mono.empty();
+                        }))
+                .doOnNext(statusResponse -> adaptivePollScheduler.record(pollState, statusResponse))
+                .repeat()
+                .takeUntil(statusResponse -> TaskStatusEnum.isTerminal(statusResponse.getStatus()))
+                .doFinally(signalType -> {
+                    // 只移除自己，避免误删同一 taskId 下新建的轮询
+                    liveTasks.remove(taskId, self.get());
+                    log.info("任务 {} 的共享轮询结束: {}", taskId, signalType);
+                })
+                // 新订阅者立即拿到最近一次状态
+                .replay(1)
+                .refCount(1, GRACE_PERIOD);
+        self.set(shared);
+        return shared;
+    }
+
+    private static boolean isShed(Throwable e) {
+        return e instanceof BusinessException businessException
+                && businessException.getCode() == ErrorCode.TOO_MANY_REQUEST_ERROR.getCode();
+    }
+}
@@ -0,0 +1,73 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * 任务后台跟踪器
+ * 独立订阅任务的共享轮询直到终态，每次状态都写入模型记录，不依赖任何 SSE 连接：
+ * 客户端全部断开后轮询照常进行，任务成功时照常提交资源转存任务
+ */
+@Component
+@Slf4j
+public class TaskProgressTracker {
+
+    /**
+     * 轮询出错后重新订阅的最大次数
+     */
+    private static final int MAX_RETRIES = 5;
+
+    /**
+     * 重新订阅的初始退避时间
+     */
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(5);
+
+    @Resource
+    private TaskPollManager taskPollManager;
+
+    @Resource
+    private Model3DService model3DService;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    /**
+     * 跟踪任务直到终态，模型记录需在订阅前写入
+     *
+     * @param taskId     任务ID
+     * @param qualityKey 质量档位，用于自适应轮询
+     * @return 任务的最终状态，订阅后才开始跟踪
+     */
+    public Mono<TaskStatusResponse> track(String taskId, String qualityKey) {
+        return taskPollManager.watch(taskId, qualityKey)
+                .concatMap(statusResponse -> blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                    model3DService.refreshModelStatus(statusResponse);
+                    return statusResponse;
+                }))
+                .last()
+                // 出错时共享轮询已结束，重新订阅会创建新的轮询，从最新状态继续
+                .retryWhen(Retry.backoff(MAX_RETRIES, RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> log.warn("任务 {} 跟踪出错，第 {} 次重试: {}", taskId,
+                                signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * 在后台跟踪任务直到终态，放弃后由重启恢复继续跟踪
+     *
+     * @param taskId     任务ID
+     * @param qualityKey 质量档位，用于自适应轮询
+     */
+    public void trackInBackground(String taskId, String qualityKey) {
+        track(taskId, qualityKey).subscribe(null, e -> log.warn("任务 {} 后台跟踪失败: {}", taskId, e.getMessage()));
+    }
+}
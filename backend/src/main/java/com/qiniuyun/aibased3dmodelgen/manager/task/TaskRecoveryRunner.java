@@ -0,0 +1,142 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import com.qiniuyun.aibased3dmodelgen.service.ModelFinalizeJobService;
+import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 生成任务重启恢复
+ * 应用启动后分批扫描未结束的模型记录：Tripo 已成功但资源未转存的补提交转存任务；
+ * 仍在生成的按限定速率和并发逐个查询一次状态，已结束的直接落库，未结束的重新挂到共享轮询上
+ */
+@Component
+@Slf4j
+public class TaskRecoveryRunner {
+
+    @Resource
+    private Model3DService model3DService;
+
+    @Resource
+    private ModelFinalizeJobService modelFinalizeJobService;
+
+    @Resource
+    private Tripo3DService tripo3DService;
+
+    @Resource
+    private TaskProgressTracker taskProgressTracker;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    @Value("${tripo3d.recovery.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tripo3d.recovery.batch-size:200}")
+    private int batchSize;
+
+    @Value("${tripo3d.recovery.concurrency:4}")
+    private int concurrency;
+
+    @Value("${tripo3d.recovery.interval-ms:200}")
+    private long intervalMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        recoverFinalization()
+                .then(recoverPolling())
+                .subscribe(null, e -> log.error("任务恢复异常", e));
+    }
+
+    /**
+     * 补提交资源转存任务，转存任务按 taskId 幂等
+     */
+    private Mono<Void> recoverFinalization() {
+        AtomicInteger count = new AtomicInteger();
+        return scanInBatches(model3DService::listUnfinalizedModels)
+                .concatMap(model3D -> blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                    if (!TaskStatusEnum.FINALIZING.getValue().equals(model3D.getStatus())) {
+                        model3D.setStatus(TaskStatusEnum.FINALIZING.getValue());
+                        model3DService.updateById(model3D);
+                    }
+                    modelFinalizeJobService.enqueue(model3D.getTaskId());
+                    return count.incrementAndGet();
+                }))
+                .then(Mono.fromRunnable(() -> log.info("重启恢复：已补提交 {} 个资源转存任务", count.get())));
+    }
+
+    /**
+     * 恢复仍在生成的任务
+     * Tripo 没有批量查询接口，这里以固定间隔逐个发起查询并限制并发，避免重启时集中打满上游
+     */
+    private Mono<Void> recoverPolling() {
+        AtomicInteger count = new AtomicInteger();
+        return scanInBatches(model3DService::listUnfinishedModels)
+                .delayElements(Duration.ofMillis(intervalMs))
+                .flatMap(model3D -> recoverTask(model3D.getTaskId()), concurrency)
+                .doOnNext(recovered -> count.incrementAndGet())
+                .then(Mono.fromRunnable(() -> log.info("重启恢复：已重新挂载 {} 个生成中任务", count.get())));
+    }
+
+    /**
+     * 查询一次任务状态并落库，未结束的任务交给共享轮询继续跟进
+     */
+    private Mono<String> recoverTask(String taskId) {
+        return tripo3DService.checkTaskStatus(taskId)
+                .flatMap(this::refreshModelStatus)
+                .filter(statusResponse -> !TaskStatusEnum.isTerminal(statusResponse.getStatus()))
+                .map(statusResponse -> {
+                    taskProgressTracker.trackInBackground(taskId, AdaptivePollScheduler.DEFAULT_QUALITY_KEY);
+                    return taskId;
+                })
+                .onErrorResume(e -> {
+                    log.warn("任务 {} 恢复查询失败: {}", taskId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 在 MySQL 舱壁中把任务状态写入已有记录
+     */
+    private Mono<TaskStatusResponse> refreshModelStatus(TaskStatusResponse statusResponse) {
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+            model3DService.refreshModelStatus(statusResponse);
+            return statusResponse;
+        });
+    }
+
+    /**
+     * 按 id 递增分批读取，每批读完再取下一批，避免一次性把所有记录装入内存
+     */
+    private Flux<Model3D> scanInBatches(BiFunction<Long, Integer, List<Model3D>> batchLoader) {
+        return loadBatch(batchLoader, 0L)
+                .expand(batch -> batch.isEmpty()
+                        ? Mono.empty()
+                        : loadBatch(batchLoader, batch.get(batch.size() - 1).getId()))
+                .concatMapIterable(batch -> batch);
+    }
+
+    private Mono<List<Model3D>> loadBatch(BiFunction<Long, Integer, List<Model3D>> batchLoader, long afterId) {
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> batchLoader.apply(afterId, batchSize));
+    }
+}
@@ -0,0 +1,219 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import com.qiniuyun.aibased3dmodelgen.config.TripoGovernorConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoRateLimitException;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.TokenBucket;
+import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tripo3D 调用限流器
+ * 创建任务、上传图片、查询状态分别使用独立的令牌桶，接近上限时在允许的时间内排队，否则直接拒绝；
+ * 同时限制已创建未结束的任务数。根据响应中的限流响应头和 429 自动暂停和降速
+ */
+@Component
+@Slf4j
+public class TripoApiGovernor {
+
+    /**
+     * 上游没有给出等待时间时，429 后暂停的时长
+     */
+    private static final Duration DEFAULT_THROTTLE_PAUSE = Duration.ofSeconds(2);
+
+    /**
+     * 大于该值的 reset 响应头视为时间戳（秒）而不是剩余秒数
+     */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private final TripoGovernorConfig config;
+
+    private final Map<TripoEndpoint, TokenBucket> buckets = new EnumMap<>(TripoEndpoint.class);
+
+    private final Map<TripoEndpoint, Counter> shedCounters = new EnumMap<>(TripoEndpoint.class);
+
+    private final Map<TripoEndpoint, Counter> throttledCounters = new EnumMap<>(TripoEndpoint.class);
+
+    /**
+     * taskId -> 创建时间，已创建但未观察到终态的任务
+     */
+    private final Map<String, Long> inFlightTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 已准入但还未返回 taskId 的创建请求数
+     */
+    private final AtomicInteger pendingCreates = new AtomicInteger();
+
+    public TripoApiGovernor(TripoGovernorConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        for (TripoEndpoint endpoint : TripoEndpoint.values()) {
+            TripoGovernorConfig.Limit limit = limitOf(endpoint);
+            buckets.put(endpoint, new TokenBucket(limit.getRate(), limit.getBurst()));
+            shedCounters.put(endpoint, Counter.builder("tripo.governor.shed")
+                    .description("因接近限流被拒绝的 Tripo3D 请求数")
+                    .tag("endpoint", endpoint.getValue())
+                    .register(meterRegistry));
+            throttledCounters.put(endpoint, Counter.builder("tripo.governor.throttled")
+                    .description("Tripo3D 返回 429 的次数")
+                    .tag("endpoint", endpoint.getValue())
+                    .register(meterRegistry));
+            Gauge.builder("tripo.governor.rate", buckets.get(endpoint), TokenBucket::currentRate)
+                    .description("当前生效的每秒请求数")
+                    .tag("endpoint", endpoint.getValue())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("tripo.governor.in.flight.tasks", this, TripoApiGovernor::inFlightTaskCount)
+                .description("已创建未结束的 Tripo3D 任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按接口限流执行请求
+     *
+     * @param endpoint 接口类别
+     * @param call     实际请求，在令牌可用时才订阅
+     * @return 请求结果，排队时间超过上限时以 {@link ErrorCode#TOO_MANY_REQUEST_ERROR} 结束
+     */
+    public <T> Mono<T> acquire(TripoEndpoint endpoint, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long waitNanos = buckets.get(endpoint).reserve(
+                    TimeUnit.MILLISECONDS.toNanos(limitOf(endpoint).getMaxWaitMs()));
+            if (waitNanos < 0) {
+                shedCounters.get(endpoint).increment();
+                return Mono.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR,
+                        "Tripo3D " + endpoint.getText() + "请求过多，请稍后重试"));
+            }
+            Mono<T> request = Mono.defer(call);
+            if (waitNanos == 0) {
+                return request;
+            }
+            // 排队期间被取消时归还预约的令牌，不占用后续请求的配额
+            TokenBucket bucket = buckets.get(endpoint);
+            return Mono.delay(Duration.ofNanos(waitNanos))
+                    .doOnCancel(bucket::cancelReservation)
+                    .then(request);
+        });
+    }
+
+    /**
+     * 创建任务，在进行中任务数和创建速率内执行，成功后把任务计入进行中
+     *
+     * @param call 实际的创建请求
+     * @return 创建结果
+     */
+    public Mono<ModelGenerateResponse> createTask(Supplier<Mono<ModelGenerateResponse>> call) {
+        return Mono.defer(() -> {
+            if (inFlightTaskCount() + pendingCreates.incrementAndGet() > config.getMaxInFlightTasks()) {
+                pendingCreates.decrementAndGet();
+                shedCounters.get(TripoEndpoint.CREATE).increment();
+                return Mono.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR,
+                        "进行中的生成任务过多，请稍后重试"));
+            }
+            return acquire(TripoEndpoint.CREATE, call)
+                    .doOnNext(response -> {
+                        if (StrUtil.isNotBlank(response.getTaskId())) {
+                            inFlightTasks.put(response.getTaskId(), System.currentTimeMillis());
+                        }
+                    })
+                    .doFinally(signal -> pendingCreates.decrementAndGet());
+        });
+    }
+
+    /**
+     * 任务已进入终态，释放进行中名额
+     */
+    public void taskFinished(String taskId) {
+        if (taskId != null) {
+            inFlightTasks.remove(taskId);
+        }
+    }
+
+    /**
+     * 读取 Tripo3D 响应中的限流信息：429 时暂停并降速，配额用完时暂停到重置时间，成功时逐步恢复速率
+     */
+    public ExchangeFilterFunction responseFilter() {
+        return (request, next) -> {
+            TripoEndpoint endpoint = TripoEndpoint.of(request.method(), request.url().getPath());
+            if (endpoint == null) {
+                return next.exchange(request);
+            }
+            return next.exchange(request).flatMap(response -> observe(endpoint, response));
+        };
+    }
+
+    int inFlightTaskCount() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(config.getInFlightTtlMinutes());
+        inFlightTasks.values().removeIf(createdAt -> createdAt < expireBefore);
+        return inFlightTasks.size();
+    }
+
+    private Mono<ClientResponse> observe(TripoEndpoint endpoint, ClientResponse response) {
+        TokenBucket bucket = buckets.get(endpoint);
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        if (response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            Duration retryAfter = retryAfter(headers);
+            bucket.throttle(retryAfter.toNanos());
+            throttledCounters.get(endpoint).increment();
+            log.warn("Tripo3D {}被限流，暂停 {} ms，当前速率: {}/s", endpoint.getText(), retryAfter.toMillis(),
+                    String.format("%.2f", bucket.currentRate()));
+            return response.releaseBody()
+                    .then(Mono.error(new TripoRateLimitException("Tripo3D " + endpoint.getText() + "被限流", retryAfter)));
+        }
+        long remaining = NumberUtil.parseLong(headers.getFirst("X-RateLimit-Remaining"), -1L);
+        if (remaining == 0) {
+            Duration reset = resetAfter(headers);
+            log.info("Tripo3D {}配额已用完，暂停 {} ms", endpoint.getText(), reset.toMillis());
+            bucket.pause(reset.toNanos());
+        } else if (response.statusCode().is2xxSuccessful()) {
+            bucket.recover();
+        }
+        return Mono.just(response);
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        long seconds = NumberUtil.parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER), -1L);
+        if (seconds >= 0) {
+            return Duration.ofSeconds(seconds);
+        }
+        return resetAfter(headers);
+    }
+
+    private static Duration resetAfter(HttpHeaders headers) {
+        long reset = NumberUtil.parseLong(headers.getFirst("X-RateLimit-Reset"), -1L);
+        if (reset < 0) {
+            return DEFAULT_THROTTLE_PAUSE;
+        }
+        if (reset > EPOCH_SECONDS_THRESHOLD) {
+            reset = Math.max(0, reset - System.currentTimeMillis() / 1000);
+        }
+        return Duration.ofSeconds(reset);
+    }
+
+    private TripoGovernorConfig.Limit limitOf(TripoEndpoint endpoint) {
+        return switch (endpoint) {
+            case CREATE -> config.getCreate();
+            case UPLOAD -> config.getUpload();
+            case STATUS -> config.getStatus();
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import com.qiniuyun.aibased3dmodelgen.config.TripoResilienceConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoServerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Tripo3D 熔断器
+ * 连续出现服务端错误、网络错误或超时达到阈值后熔断：熔断期间状态查询暂停等待而不是失败，
+ * 创建任务等非幂等调用直接拒绝；熔断时间到后放行一个试探请求，成功则恢复，失败则加倍熔断时间
+ */
+@Component
+@Slf4j
+public class TripoCircuitBreaker {
+
+    /**
+     * 半开状态下试探请求进行中时，其他请求的等待间隔
+     */
+    private static final long PROBE_WAIT_MILLIS = 1000;
+
+    private final TripoResilienceConfig config;
+
+    private final LongSupplier clock;
+
+    private final Counter openedCounter;
+
+    @Getter
+    private volatile State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openDurationMillis;
+
+    private long openUntilMillis;
+
+    private boolean probeInFlight;
+
+    public TripoCircuitBreaker(TripoResilienceConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::currentTimeMillis);
+    }
+
+    TripoCircuitBreaker(TripoResilienceConfig config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.openDurationMillis = config.getBreakerOpenDurationMs();
+        Gauge.builder("tripo.circuit.state", this, breaker -> breaker.getState().getValue())
+                .description("Tripo3D 熔断器状态：0 关闭，1 半开，2 打开")
+                .register(meterRegistry);
+        this.openedCounter = Counter.builder("tripo.circuit.opened")
+                .description("Tripo3D 熔断次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 等待熔断器放行，用于可以暂停的调用（状态查询）
+     */
+    public Mono<Void> awaitPermission() {
+        return Mono.defer(() -> {
+            long waitMillis = tryAcquire();
+            return waitMillis == 0 ? Mono.empty()
+                    : Mono.delay(Duration.ofMillis(waitMillis)).then(awaitPermission());
+        });
+    }
+
+    /**
+     * 熔断时直接拒绝，用于不能长时间挂起的调用（创建任务、上传图片）
+     */
+    public Mono<Void> checkPermission() {
+        return Mono.defer(() -> tryAcquire() == 0 ? Mono.empty()
+                : Mono.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "Tripo3D 服务暂不可用，请稍后重试")));
+    }
+
+    /**
+     * 在熔断器保护下执行调用并记录结果
+     *
+     * @param wait 熔断时是否等待恢复，为 false 时直接拒绝
+     * @param call 实际调用
+     * @return 调用结果
+     */
+    public <T> Mono<T> protect(boolean wait, Mono<T> call) {
+        // 只记录实际调用的结果，熔断器自身的拒绝不计入
+        return (wait ? awaitPermission() : checkPermission())
+                .then(Mono.defer(() -> call
+                        .doOnSuccess(value -> onSuccess())
+                        .doOnError(e -> {
+                            if (isOutage(e)) {
+                                onFailure();
+                            } else {
+                                // 4xx 等业务错误说明服务本身可用
+                                onSuccess();
+                            }
+                        })
+                        .doOnCancel(this::releaseProbe)));
+    }
+
+    /**
+     * 幂等调用的重试策略：只重试临时故障，指数退避并加随机抖动
+     */
+    public Retry idempotentRetry() {
+        return backoff();
+    }
+
+    /**
+     * 重试中包含阻塞调用（下载、上传 COS、舱壁许可等待）时使用：
+     * 退避默认在 parallel 线程上重新订阅，阻塞会失败，改为在 boundedElastic 线程上重试
+     */
+    public Retry blockingRetry() {
+        return backoff().scheduler(Schedulers.boundedElastic());
+    }
+
+    private RetryBackoffSpec backoff() {
+        return Retry.backoff(config.getRetryMaxAttempts(), Duration.ofMillis(config.getRetryMinBackoffMs()))
+                .maxBackoff(Duration.ofMillis(config.getRetryMaxBackoffMs()))
+                .jitter(config.getRetryJitter())
+                .filter(TripoCircuitBreaker::isOutage)
+                .doBeforeRetry(signal -> log.warn("Tripo3D 调用失败，第 {} 次重试: {}", signal.totalRetries() + 1,
+                        signal.failure().getMessage()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * 是否属于服务不可用类的临时故障
+     */
+    public static boolean isOutage(Throwable e) {
+        Throwable cause = Exceptions.unwrap(e);
+        return cause instanceof TripoServerException
+                || cause instanceof WebClientRequestException
+                || cause instanceof TimeoutException
+                || cause instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * @return 0 表示放行，否则为建议的等待毫秒数
+     */
+    synchronized long tryAcquire() {
+        long now = clock.getAsLong();
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+                if (now < openUntilMillis) {
+                    return openUntilMillis - now;
+                }
+                transition(State.HALF_OPEN);
+                probeInFlight = true;
+                return 0;
+            default:
+                if (probeInFlight) {
+                    return PROBE_WAIT_MILLIS;
+                }
+                probeInFlight = true;
+                return 0;
+        }
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            openDurationMillis = config.getBreakerOpenDurationMs();
+            transition(State.CLOSED);
+        }
+    }
+
+    synchronized void onFailure() {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN) {
+            // 试探失败，加倍熔断时间
+            openDurationMillis = Math.min(config.getBreakerMaxOpenDurationMs(), openDurationMillis * 2);
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= config.getBreakerFailureThreshold()) {
+            open();
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    private void open() {
+        openUntilMillis = clock.getAsLong() + openDurationMillis;
+        openedCounter.increment();
+        transition(State.OPEN);
+    }
+
+    private void transition(State target) {
+        if (state != target) {
+            log.warn("Tripo3D 熔断器状态变化: {} -> {}", state.getText(), target.getText());
+            state = target;
+        }
+    }
+
+    /**
+     * 熔断器状态
+     */
+    @Getter
+    public enum State {
+
+        CLOSED("关闭", 0),
+        HALF_OPEN("半开", 1),
+        OPEN("打开", 2);
+
+        private final String text;
+
+        private final int value;
+
+        State(String text, int value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import lombok.Getter;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Tripo3D 接口类别，每类单独限流
+ */
+@Getter
+public enum TripoEndpoint {
+
+    CREATE("创建任务", "create"),
+    UPLOAD("上传图片", "upload"),
+    STATUS("查询状态", "status");
+
+    private final String text;
+
+    private final String value;
+
+    TripoEndpoint(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据请求方法和路径判断接口类别
+     *
+     * @param method 请求方法
+     * @param path   请求路径
+     * @return 接口类别，不是 Tripo3D OpenAPI 的请求返回 null
+     */
+    public static TripoEndpoint of(HttpMethod method, String path) {
+        if (path == null || !path.startsWith("/v2/openapi/")) {
+            return null;
+        }
+        if (path.startsWith("/v2/openapi/upload")) {
+            return UPLOAD;
+        }
+        if (path.startsWith("/v2/openapi/task")) {
+            return HttpMethod.GET.equals(method) ? STATUS : CREATE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在 /actuator/health 中展示 Tripo3D 熔断器状态
+ * 熔断时报告 DEGRADED 而不是 DOWN，生成功能不可用但服务本身不需要重启
+ */
+@Component
+public class TripoHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Tripo3D 熔断中，生成任务暂不可用");
+
+    @Resource
+    private TripoCircuitBreaker tripoCircuitBreaker;
+
+    @Override
+    public Health health() {
+        TripoCircuitBreaker.State state = tripoCircuitBreaker.getState();
+        Health.Builder builder = state == TripoCircuitBreaker.State.CLOSED ? Health.up() : Health.status(DEGRADED);
+        return builder.withDetail("circuit", state.name()).build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tripo3D API Key 池
+ * 新任务交给进行中任务最少的 Key，任务创建后固定使用创建它的 Key 查询状态；
+ * Key 鉴权失败或额度不足时暂停使用一段时间
+ */
+@Component
+@Slf4j
+public class TripoKeyPool {
+
+    /**
+     * 额度不足类错误响应中的关键字
+     */
+    private static final String[] QUOTA_KEYWORDS = {"quota", "credit", "balance", "insufficient"};
+
+    private final List<ApiKey> keys;
+
+    private final long benchMillis;
+
+    private final long pinTtlMillis;
+
+    /**
+     * taskId -> 固定使用的 Key
+     */
+    private final Map<String, Pin> pins = new ConcurrentHashMap<>();
+
+    public TripoKeyPool(MeterRegistry meterRegistry,
+                        @Value("${tripo3d.api.keys:}") List<String> keys,
+                        @Value("${tripo3d.api.key:}") String key,
+                        @Value("${tripo3d.api.bench-minutes:10}") long benchMinutes,
+                        @Value("${tripo3d.governor.in-flight-ttl-minutes:30}") long pinTtlMinutes) {
+        // 未配置 Key 池时使用单个 Key
+        Set<String> secrets = new LinkedHashSet<>();
+        keys.stream().filter(StrUtil::isNotBlank).map(String::trim).forEach(secrets::add);
+        if (secrets.isEmpty() && StrUtil.isNotBlank(key)) {
+            secrets.add(key.trim());
+        }
+        List<ApiKey> pool = new ArrayList<>();
+        int index = 0;
+        for (String secret : secrets) {
+            ApiKey apiKey = new ApiKey("key-" + index++ + ":" + StrUtil.hide(secret, 8, secret.length()), secret);
+            pool.add(apiKey);
+            Gauge.builder("tripo.key.in.flight", apiKey, this::load)
+                    .description("Tripo3D API Key 上进行中的任务数")
+                    .tag("key", apiKey.getName())
+                    .register(meterRegistry);
+        }
+        this.keys = List.copyOf(pool);
+        this.benchMillis = TimeUnit.MINUTES.toMillis(benchMinutes);
+        this.pinTtlMillis = TimeUnit.MINUTES.toMillis(pinTtlMinutes);
+        log.info("Tripo3D API Key 池共 {} 个 Key", this.keys.size());
+    }
+
+    /**
+     * 为新任务租用一个 Key：可用 Key 中进行中任务最少的一个
+     * 使用完后必须调用 {@link #returnLease(ApiKey)}
+     *
+     * @return Key
+     */
+    public ApiKey lease() {
+        return lease(List.of());
+    }
+
+    /**
+     * 为新任务租用一个 Key，优先使用指定指纹的可用 Key（如已缓存了图片 token 的 Key）
+     * 使用完后必须调用 {@link #returnLease(ApiKey)}
+     *
+     * @param preferredFingerprints 优先使用的 Key 指纹
+     * @return Key
+     */
+    public ApiKey lease(Collection<String> preferredFingerprints) {
+        ApiKey selected = availableKeys().stream()
+                .min(Comparator.<ApiKey>comparingInt(key -> preferredFingerprints.contains(key.getFingerprint()) ? 0 : 1)
+                        .thenComparingInt(this::load))
+                .orElseThrow(() -> new BusinessException(ErrorCode.OPERATION_ERROR, "没有可用的 Tripo3D API Key"));
+        selected.pending.incrementAndGet();
+        return selected;
+    }
+
+    /**
+     * 归还租用
+     */
+    public void returnLease(ApiKey key) {
+        key.pending.decrementAndGet();
+    }
+
+    /**
+     * 任务固定使用创建它的 Key
+     */
+    public void pin(String taskId, ApiKey key) {
+        if (StrUtil.isNotBlank(taskId)) {
+            pins.put(taskId, new Pin(key, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 任务已结束，释放对 Key 的占用
+     */
+    public void release(String taskId) {
+        if (taskId != null) {
+            pins.remove(taskId);
+        }
+    }
+
+    /**
+     * 查询任务状态可使用的 Key：已固定的任务只使用固定的 Key；
+     * 其他节点或重启前创建的任务依次尝试，可用的 Key 优先
+     *
+     * @param taskId 任务ID
+     * @return 候选 Key
+     */
+    public List<ApiKey> candidatesFor(String taskId) {
+        Pin pin = pins.get(taskId);
+        if (pin != null) {
+            return List.of(pin.key);
+        }
+        List<ApiKey> candidates = new ArrayList<>(keys);
+        candidates.sort(Comparator.comparing(ApiKey::isBenched));
+        return candidates;
+    }
+
+    /**
+     * 根据错误响应判断 Key 是否不可用（鉴权失败或额度不足），不可用时暂停使用
+     *
+     * @param key        Key
+     * @param statusCode HTTP 状态码
+     * @param errorBody  错误响应
+     * @return Key 是否被暂停使用
+     */
+    public boolean reportRejected(ApiKey key, int statusCode, String errorBody) {
+        boolean authFailed = statusCode == 401 || statusCode == 403;
+        boolean quotaExceeded = statusCode == 402 || StrUtil.containsAnyIgnoreCase(errorBody, QUOTA_KEYWORDS);
+        if (!authFailed && !quotaExceeded) {
+            return false;
+        }
+        key.benchedUntilMillis = System.currentTimeMillis() + benchMillis;
+        log.warn("Tripo3D API Key {} {}，暂停使用 {} 分钟", key.getName(), authFailed ? "鉴权失败" : "额度不足",
+                TimeUnit.MILLISECONDS.toMinutes(benchMillis));
+        return true;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    int load(ApiKey key) {
+        long expireBefore = System.currentTimeMillis() - pinTtlMillis;
+        pins.values().removeIf(pin -> pin.pinnedAt < expireBefore);
+        int pinned = 0;
+        for (Pin pin : pins.values()) {
+            if (pin.key == key) {
+                pinned++;
+            }
+        }
+        return pinned + key.pending.get();
+    }
+
+    private List<ApiKey> availableKeys() {
+        return keys.stream().filter(key -> !key.isBenched()).toList();
+    }
+
+    /**
+     * 单个 API Key
+     */
+    public static class ApiKey {
+
+        /**
+         * 脱敏后的名称，用于日志和指标
+         */
+        @Getter
+        private final String name;
+
+        @Getter
+        private final String secret;
+
+        /**
+         * Key 的指纹，用于持久化与 Key 绑定的数据而不保存 Key 本身
+         */
+        @Getter
+        private final String fingerprint;
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile long benchedUntilMillis;
+
+        ApiKey(String name, String secret) {
+            this.name = name;
+            this.secret = secret;
+            this.fingerprint = DigestUtil.sha256Hex(secret).substring(0, 16);
+        }
+
+        public boolean isBenched() {
+            return System.currentTimeMillis() < benchedUntilMillis;
+        }
+    }
+
+    private static class Pin {
+
+        private final ApiKey key;
+
+        private final long pinnedAt;
+
+        Pin(ApiKey key, long pinnedAt) {
+            this.key = key;
+            this.pinnedAt = pinnedAt;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.qiniuyun.aibased3dmodelgen.mapper;
+
+import com.mybatisflex.core.BaseMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.GenerationFlight;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 进行中的生成请求数据访问层
+ */
+@Mapper
+public interface GenerationFlightMapper extends BaseMapper<GenerationFlight> {
+}
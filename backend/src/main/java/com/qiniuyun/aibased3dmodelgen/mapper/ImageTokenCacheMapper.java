@@ -0,0 +1,12 @@
+package com.qiniuyun.aibased3dmodelgen.mapper;
+
+import com.mybatisflex.core.BaseMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ImageTokenCache;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * Tripo 图片 token 缓存数据访问层
+ */
+@Mapper
+public interface ImageTokenCacheMapper extends BaseMapper<ImageTokenCache> {
+}
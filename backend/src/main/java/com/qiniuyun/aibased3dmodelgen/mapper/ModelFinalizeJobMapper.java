@@ -0,0 +1,12 @@
+package com.qiniuyun.aibased3dmodelgen.mapper;
+
+import com.mybatisflex.core.BaseMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ModelFinalizeJob;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 模型资源转存任务数据访问层
+ */
+@Mapper
+public interface ModelFinalizeJobMapper extends BaseMapper<ModelFinalizeJob> {
+}
@@ -1,5 +1,6 @@
 package com.qiniuyun.aibased3dmodelgen.model.dto;
 
+import cn.hutool.core.annotation.PropIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -64,4 +65,10 @@ public class ModelGenerateStreamRequest {
      */
     private String compress = "";
 
+    /**
+     * 应用 ID，决定提示词增强使用的 AI 服务和缓存，只在增强生成时使用，不参与请求签名
+     */
+    @PropIgnore
+    private Long appId = 1L;
+
 }
\ No newline at end of file
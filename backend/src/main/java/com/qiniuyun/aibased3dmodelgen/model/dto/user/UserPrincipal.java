@@ -0,0 +1,37 @@
+package com.qiniuyun.aibased3dmodelgen.model.dto.user;
+
+import com.qiniuyun.aibased3dmodelgen.model.entity.User;
+import lombok.Value;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 登录用户身份快照
+ * 在请求入口解析一次后随生成流传递，不再依赖 HttpServletRequest，可在请求线程结束后安全使用
+ */
+@Value
+public class UserPrincipal implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户 id
+     */
+    Long id;
+
+    /**
+     * 账号
+     */
+    String userAccount;
+
+    /**
+     * 用户角色：user/admin
+     */
+    String userRole;
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUserAccount(), user.getUserRole());
+    }
+}
@@ -0,0 +1,56 @@
+package com.qiniuyun.aibased3dmodelgen.model.entity;
+
+import com.mybatisflex.annotation.Column;
+import com.mybatisflex.annotation.Id;
+import com.mybatisflex.annotation.KeyType;
+import com.mybatisflex.annotation.Table;
+import com.mybatisflex.core.keygen.KeyGenerators;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 进行中的生成请求实体类，同一用户的同一请求签名同时只允许一条记录
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("generation_flight")
+public class GenerationFlight implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id(keyType = KeyType.Generator, value = KeyGenerators.snowFlakeId)
+    private Long id;
+
+    /**
+     * 请求签名，与用户ID联合唯一
+     */
+    @Column("requestSignature")
+    private String requestSignature;
+
+    /**
+     * 发起请求的用户ID，模型记录按用户区分，不同用户的相同请求各自生成
+     */
+    @Column("userId")
+    private Long userId;
+
+    /**
+     * Tripo3D 任务 ID，任务创建前为空
+     */
+    @Column("taskId")
+    private String taskId;
+
+    @Column("createTime")
+    private LocalDateTime createTime;
+
+    @Column("updateTime")
+    private LocalDateTime updateTime;
+}
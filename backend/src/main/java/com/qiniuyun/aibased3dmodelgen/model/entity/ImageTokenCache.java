@@ -0,0 +1,62 @@
+package com.qiniuyun.aibased3dmodelgen.model.entity;
+
+import com.mybatisflex.annotation.Column;
+import com.mybatisflex.annotation.Id;
+import com.mybatisflex.annotation.KeyType;
+import com.mybatisflex.annotation.Table;
+import com.mybatisflex.core.keygen.KeyGenerators;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Tripo 图片 token 缓存实体类，按图片内容哈希和 API Key 缓存上传得到的 image_token
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("image_token_cache")
+public class ImageTokenCache implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id(keyType = KeyType.Generator, value = KeyGenerators.snowFlakeId)
+    private Long id;
+
+    /**
+     * 图片内容 SHA-256
+     */
+    @Column("contentHash")
+    private String contentHash;
+
+    /**
+     * 上传所用 API Key 的指纹
+     */
+    @Column("keyFingerprint")
+    private String keyFingerprint;
+
+    /**
+     * Tripo image_token
+     */
+    @Column("imageToken")
+    private String imageToken;
+
+    /**
+     * 过期时间
+     */
+    @Column("expireTime")
+    private LocalDateTime expireTime;
+
+    @Column("createTime")
+    private LocalDateTime createTime;
+
+    @Column("updateTime")
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,74 @@
+package com.qiniuyun.aibased3dmodelgen.model.entity;
+
+import com.mybatisflex.annotation.Column;
+import com.mybatisflex.annotation.Id;
+import com.mybatisflex.annotation.KeyType;
+import com.mybatisflex.annotation.Table;
+import com.mybatisflex.core.keygen.KeyGenerators;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 模型资源转存任务实体类
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("model_finalize_job")
+public class ModelFinalizeJob implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id(keyType = KeyType.Generator, value = KeyGenerators.snowFlakeId)
+    private Long id;
+
+    /**
+     * Tripo3D 任务 ID（唯一，保证幂等）
+     */
+    @Column("taskId")
+    private String taskId;
+
+    /**
+     * 任务状态：pending/running/success/failed
+     */
+    @Column("status")
+    private String status;
+
+    /**
+     * 已尝试次数
+     */
+    @Column("attempts")
+    private Integer attempts;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column("lastError")
+    private String lastError;
+
+    /**
+     * 下次可执行时间
+     */
+    @Column("nextRunTime")
+    private LocalDateTime nextRunTime;
+
+    /**
+     * 执行租约到期时间，超时未完成的任务可被重新领取
+     */
+    @Column("lockedUntil")
+    private LocalDateTime lockedUntil;
+
+    @Column("createTime")
+    private LocalDateTime createTime;
+
+    @Column("updateTime")
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,42 @@
+package com.qiniuyun.aibased3dmodelgen.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * 模型资源转存任务状态枚举
+ */
+@Getter
+public enum FinalizeJobStatusEnum {
+
+    PENDING("等待执行", "pending"),
+    RUNNING("执行中", "running"),
+    SUCCESS("执行成功", "success"),
+    FAILED("执行失败", "failed");
+
+    private final String text;
+    private final String value;
+
+    FinalizeJobStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static FinalizeJobStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (FinalizeJobStatusEnum anEnum : FinalizeJobStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.qiniuyun.aibased3dmodelgen.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 支持的图片格式枚举，根据文件头识别
+ */
+@Getter
+public enum ImageFormatEnum {
+
+    PNG("PNG", "png", "image/png"),
+    JPEG("JPEG", "jpg", "image/jpeg"),
+    WEBP("WEBP", "webp", "image/webp");
+
+    private final String text;
+
+    /**
+     * 文件扩展名
+     */
+    private final String value;
+
+    private final String mimeType;
+
+    ImageFormatEnum(String text, String value, String mimeType) {
+        this.text = text;
+        this.value = value;
+        this.mimeType = mimeType;
+    }
+}
@@ -0,0 +1,65 @@
+package com.qiniuyun.aibased3dmodelgen.model.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * Tripo3D 任务状态枚举（含本地资源转存阶段的状态）
+ */
+@Getter
+public enum TaskStatusEnum {
+
+    QUEUED("排队中", "queued", false),
+    RUNNING("生成中", "running", false),
+    SUCCESS("生成成功", "success", true),
+    FAILED("生成失败", "failed", true),
+    BANNED("内容被封禁", "banned", true),
+    EXPIRED("任务已过期", "expired", true),
+    CANCELLED("任务已取消", "cancelled", true),
+    UNKNOWN("未知状态", "unknown", false),
+    FINALIZING("资源转存中", "finalizing", false),
+    PROCESSING_FAILED("资源转存失败", "processing_failed", true);
+
+    private final String text;
+    private final String value;
+
+    /**
+     * 是否为终态（终态后无需再轮询）
+     */
+    private final boolean terminal;
+
+    TaskStatusEnum(String text, String value, boolean terminal) {
+        this.text = text;
+        this.value = value;
+        this.terminal = terminal;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值的value
+     * @return 枚举值
+     */
+    public static TaskStatusEnum getEnumByValue(String value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (TaskStatusEnum anEnum : TaskStatusEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断状态是否为终态
+     *
+     * @param value 状态值
+     * @return 是否为终态
+     */
+    public static boolean isTerminal(String value) {
+        TaskStatusEnum anEnum = getEnumByValue(value);
+        return anEnum != null && anEnum.terminal;
+    }
+}
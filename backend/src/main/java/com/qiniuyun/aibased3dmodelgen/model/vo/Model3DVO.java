@@ -73,5 +73,15 @@ public class Model3DVO implements Serializable {
      */
     private Integer isPublic;
 
+    /**
+     * 错误是否可重试（系统繁忙时为 true）
+     */
+    private Boolean retryable;
+
+    /**
+     * 建议的重试等待时间（毫秒）
+     */
+    private Long retryAfterMs;
+
     private static final long serialVersionUID = 1L;
 }
@@ -1,5 +1,6 @@
 package com.qiniuyun.aibased3dmodelgen.service;
 
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageInfo;
 import com.qiniuyun.aibased3dmodelgen.model.enums.UploadFileTypeEnum;
 import com.qiniuyun.aibased3dmodelgen.model.enums.ObjectGenTypeEnum;
 import org.springframework.stereotype.Service;
@@ -7,6 +8,7 @@ import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
+import java.io.InputStream;
 
 @Service
 public interface AppService {
@@ -30,6 +32,25 @@ public interface AppService {
 
     String uploadFile(File file, String originalFilename, UploadFileTypeEnum uploadFileTypeEnum);
 
+    /**
+     * 以流的方式上传文件，不落盘
+     * @param inputStream 输入流
+     * @param contentLength 内容长度
+     * @param contentType 内容类型
+     * @param originalFilename 希望在COS中保存的文件名
+     * @param uploadFileTypeEnum 文件类型
+     * @return 上传到COS后的可访问URL
+     */
+    String uploadStream(InputStream inputStream, long contentLength, String contentType,
+                        String originalFilename, UploadFileTypeEnum uploadFileTypeEnum);
+
+    /**
+     * 删除已上传的文件，同时放弃该文件未完成的分片上传
+     * @param originalFilename 上传时使用的文件名
+     * @param uploadFileTypeEnum 文件类型
+     */
+    void deleteFile(String originalFilename, UploadFileTypeEnum uploadFileTypeEnum);
+
     /**
      * 验证图片
      * @param inputSource
@@ -37,9 +58,10 @@ public interface AppService {
     void validPicture(Object inputSource);
 
     /**
-     * 获取图片类型
-     * @param multipartFile
-     * @return
+     * 验证已读入内存的图片，根据完整内容识别格式和尺寸
+     * @param multipartFile 上传的文件
+     * @param pictureBytes 图片内容
+     * @return 图片信息，包含格式和尺寸
      */
-    String getPictureType(MultipartFile multipartFile);
+    ImageInfo validPicture(MultipartFile multipartFile, byte[] pictureBytes);
 }
@@ -0,0 +1,34 @@
+package com.qiniuyun.aibased3dmodelgen.service;
+
+import com.mybatisflex.core.service.IService;
+import com.qiniuyun.aibased3dmodelgen.model.entity.GenerationFlight;
+
+/**
+ * 进行中的生成请求 服务层
+ */
+public interface GenerationFlightService extends IService<GenerationFlight> {
+
+    /**
+     * 尝试占用用户的请求签名，依赖唯一约束保证多实例下只有一个请求能占用成功
+     *
+     * @param requestSignature 请求签名
+     * @param userId           用户ID
+     * @return 是否占用成功
+     */
+    boolean tryAcquire(String requestSignature, Long userId);
+
+    /**
+     * 记录占用者创建的任务ID
+     */
+    void bindTask(String requestSignature, Long userId, String taskId);
+
+    /**
+     * 根据请求签名和用户查询
+     */
+    GenerationFlight getByRequestSignature(String requestSignature, Long userId);
+
+    /**
+     * 释放用户的请求签名
+     */
+    void release(String requestSignature, Long userId);
+}
@@ -0,0 +1,34 @@
+package com.qiniuyun.aibased3dmodelgen.service;
+
+import com.mybatisflex.core.service.IService;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ImageTokenCache;
+
+import java.util.List;
+
+/**
+ * Tripo 图片 token 缓存 服务层
+ */
+public interface ImageTokenCacheService extends IService<ImageTokenCache> {
+
+    /**
+     * 查询图片未过期的 token，每个 API Key 最多一条
+     *
+     * @param contentHash 图片内容 SHA-256
+     * @return 未过期的缓存记录
+     */
+    List<ImageTokenCache> listValid(String contentHash);
+
+    /**
+     * 保存上传得到的 token，已存在时覆盖
+     *
+     * @param contentHash    图片内容 SHA-256
+     * @param keyFingerprint API Key 指纹
+     * @param imageToken     Tripo image_token
+     */
+    void saveToken(String contentHash, String keyFingerprint, String imageToken);
+
+    /**
+     * 上游拒绝 token 时移除
+     */
+    void evict(String contentHash, String keyFingerprint);
+}
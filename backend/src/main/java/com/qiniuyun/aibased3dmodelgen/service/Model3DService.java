@@ -7,10 +7,10 @@ import com.qiniuyun.aibased3dmodelgen.model.dto.model3d.Model3DQueryRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserQueryRequest;
 import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
 import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserPrincipal;
 import com.qiniuyun.aibased3dmodelgen.model.entity.User;
 import com.qiniuyun.aibased3dmodelgen.model.vo.Model3DVO;
 import com.qiniuyun.aibased3dmodelgen.model.vo.UserVO;
-import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.List;
 
@@ -20,13 +20,79 @@ public interface Model3DService extends IService<Model3D> {
     /**
      * 保存或更新模型（文本转模型，带实际提示词）
      */
-    Model3D saveOrUpdateModelFromText(TaskStatusResponse taskStatusResponse, String prompt, String requestSignature, HttpServletRequest request);
+    Model3D saveOrUpdateModelFromText(TaskStatusResponse taskStatusResponse, String prompt, String requestSignature, UserPrincipal principal);
     
     /**
      * 保存或更新模型（图片转模型）
      */
-    Model3D saveOrUpdateModelFromImage(TaskStatusResponse taskStatusResponse, String pictureUrl, HttpServletRequest request);
+    Model3D saveOrUpdateModelFromImage(TaskStatusResponse taskStatusResponse, String pictureUrl, UserPrincipal principal);
     
+    /**
+     * 任务创建后立即写入排队中的模型记录，之后由轮询刷新状态；
+     * 创建请求的连接断开后，后台跟踪和重启恢复仍能找到该任务
+     *
+     * @param taskId           任务ID
+     * @param prompt           实际提交的提示词
+     * @param requestSignature 请求签名
+     * @param principal        登录用户
+     * @return 模型记录，已存在时返回已有记录
+     */
+    Model3D createQueuedModel(String taskId, String prompt, String requestSignature, UserPrincipal principal);
+
+    /**
+     * 图片转模型任务创建后立即写入排队中的模型记录
+     *
+     * @param taskId     任务ID
+     * @param pictureUrl 归档的原图地址，可为空
+     * @param principal  登录用户
+     * @return 模型记录，已存在时返回已有记录
+     */
+    Model3D createQueuedImageModel(String taskId, String pictureUrl, UserPrincipal principal);
+
+    /**
+     * 用最新任务状态刷新已有模型记录（不创建新记录，用于重启恢复等脱离请求的场景）
+     *
+     * @param taskStatusResponse 任务状态
+     * @return 更新后的模型，记录不存在时返回 null
+     */
+    Model3D refreshModelStatus(TaskStatusResponse taskStatusResponse);
+
+    /**
+     * 按 id 递增分批查询 Tripo 任务尚未结束的模型
+     *
+     * @param afterId 上一批最后一条记录的 id
+     * @param limit   每批条数
+     * @return 模型列表
+     */
+    List<Model3D> listUnfinishedModels(long afterId, int limit);
+
+    /**
+     * 按 id 递增分批查询 Tripo 任务已成功但资源尚未转存的模型
+     *
+     * @param afterId 上一批最后一条记录的 id
+     * @param limit   每批条数
+     * @return 模型列表
+     */
+    List<Model3D> listUnfinalizedModels(long afterId, int limit);
+
+    /**
+     * 资源转存完成后回填 COS 地址并标记成功
+     *
+     * @param taskId           任务ID
+     * @param pbrModelUrl      COS 上的模型地址
+     * @param renderedImageUrl COS 上的预览图地址
+     * @return 更新后的模型
+     */
+    Model3D completeFinalization(String taskId, String pbrModelUrl, String renderedImageUrl);
+
+    /**
+     * 资源转存最终失败，标记模型状态
+     *
+     * @param taskId 任务ID
+     * @return 更新后的模型
+     */
+    Model3D failFinalization(String taskId);
+
     /**
      * 根据taskId查询模型
      */
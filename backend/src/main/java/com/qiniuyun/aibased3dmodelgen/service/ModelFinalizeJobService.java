@@ -0,0 +1,57 @@
+package com.qiniuyun.aibased3dmodelgen.service;
+
+import com.mybatisflex.core.service.IService;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ModelFinalizeJob;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 模型资源转存任务 服务层
+ */
+public interface ModelFinalizeJobService extends IService<ModelFinalizeJob> {
+
+    /**
+     * 为任务创建资源转存任务，同一 taskId 只会创建一次
+     *
+     * @param taskId Tripo3D 任务ID
+     */
+    void enqueue(String taskId);
+
+    /**
+     * 根据taskId查询转存任务
+     */
+    ModelFinalizeJob getByTaskId(String taskId);
+
+    /**
+     * 查询到期可执行的任务（待执行或租约已过期）
+     *
+     * @param limit 最大条数
+     * @return 任务列表
+     */
+    List<ModelFinalizeJob> listDueJobs(int limit);
+
+    /**
+     * 尝试领取任务，基于条件更新，多实例部署时只有一个实例能领取成功
+     *
+     * @param job   任务
+     * @param lease 执行租约时长
+     * @return 是否领取成功
+     */
+    boolean tryClaim(ModelFinalizeJob job, Duration lease);
+
+    /**
+     * 标记任务成功
+     */
+    void markSuccess(ModelFinalizeJob job);
+
+    /**
+     * 记录一次失败，未超过最大次数时按退避时间重新排队
+     *
+     * @param job         任务
+     * @param error       失败原因
+     * @param maxAttempts 最大尝试次数
+     * @return 是否已放弃重试
+     */
+    boolean markFailure(ModelFinalizeJob job, String error, int maxAttempts);
+}
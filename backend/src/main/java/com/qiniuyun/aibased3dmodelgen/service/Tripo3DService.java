@@ -1,21 +1,36 @@
 package com.qiniuyun.aibased3dmodelgen.service;
 
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.RandomUtil;
-import cn.hutool.http.HttpUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
 import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
 import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoClientException;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoKeyRejectedException;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoServerException;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResource;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageInfo;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageIntake;
+import com.qiniuyun.aibased3dmodelgen.manager.tripo.TripoApiGovernor;
+import com.qiniuyun.aibased3dmodelgen.manager.tripo.TripoCircuitBreaker;
+import com.qiniuyun.aibased3dmodelgen.manager.tripo.TripoEndpoint;
+import com.qiniuyun.aibased3dmodelgen.manager.tripo.TripoKeyPool;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ImageToModelRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.ModelGenerateResponse;
 import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ImageTokenCache;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.qiniuyun.aibased3dmodelgen.model.enums.ModelGenTypeEnum;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
 import com.qiniuyun.aibased3dmodelgen.model.enums.UploadFileTypeEnum;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
@@ -23,14 +38,27 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -43,9 +71,36 @@ public class Tripo3DService {
     @Lazy
     private AppService appService;
 
-    // 从 application.properties 注入配置
-    @Value("${tripo3d.api.key}")
-    private String apiKey;
+    @Resource(name = "assetTransferExecutor")
+    private ExecutorService assetTransferExecutor;
+
+    @Resource
+    private BlockingResourceLimiter blockingResourceLimiter;
+
+    @Resource
+    private TripoApiGovernor tripoApiGovernor;
+
+    /**
+     * 资源转存时的读缓冲区大小
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 任务不存在或不属于当前 Key 时错误响应中的关键字
+     */
+    private static final String[] TASK_NOT_FOUND_KEYWORDS = {"not found", "not exist", "no such task", "permission"};
+
+    @Resource
+    private TripoKeyPool tripoKeyPool;
+
+    @Resource
+    private TripoCircuitBreaker tripoCircuitBreaker;
+
+    @Resource
+    private ImageTokenCacheService imageTokenCacheService;
+
+    @Resource
+    private ImageIntake imageIntake;
 
     @Autowired
     public Tripo3DService(WebClient tripo3dWebClient) {
@@ -60,18 +115,14 @@ public class Tripo3DService {
     public Mono<ModelGenerateResponse> generateModelFromText(ModelGenerateRequest modelGenerateRequest) {
         modelGenerateRequest.setType(ModelGenTypeEnum.TEXT.getValue());
 
-        return this.webClient.post()
+        return withLeasedKey(key -> createTask(key, () -> this.webClient.post()
                 .uri("/v2/openapi/task")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + key.getSecret())
                 .bodyValue(modelGenerateRequest)
                 .retrieve()
-                .onStatus(status -> status.is4xxClientError(), response -> response.bodyToMono(String.class)
-                        .map(errorBody -> {
-                            log.error("Tripo3D API 4xx error: {}", errorBody);
-                            return new RuntimeException("API请求错误: " + errorBody);
-                        }))
-                .onStatus(status -> status.is5xxServerError(), response -> Mono.just(new RuntimeException("Tripo3D服务器错误")))
-                .bodyToMono(ModelGenerateResponse.class);
+                .onStatus(status -> status.is4xxClientError(), response -> clientError(response, key, "API请求错误: "))
+                .onStatus(status -> status.is5xxServerError(), response -> Mono.just(new TripoServerException("Tripo3D服务器错误")))
+                .bodyToMono(ModelGenerateResponse.class)));
     }
 
 
@@ -81,64 +132,70 @@ public class Tripo3DService {
      * @return 包含file_token的响应 Mono
      */
     public Mono<String> uploadImage(String imageUrl) {
+        return withLeasedKey(key -> uploadImage(imageUrl, key));
+    }
+
+    /**
+     * 使用指定的 Key 上传图片，file_token 只能由同一个 Key 使用
+     */
+    private Mono<String> uploadImage(String imageUrl, TripoKeyPool.ApiKey key) {
         log.info("开始上传图片: {}", imageUrl);
         // 首先下载图片
         return this.webClient.get()
                 .uri(imageUrl)
                 .retrieve()
                 .bodyToMono(byte[].class)
+                // 下载是幂等的，临时故障时退避重试
+                .retryWhen(tripoCircuitBreaker.idempotentRetry())
                 .flatMap(imageBytes -> {
-                    // 创建multipart请求上传图片
-                    MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
-                    // 从URL中提取文件名和扩展名 - 使用final变量
-                    final String fileName;
-                    if (imageUrl.toLowerCase().contains(".webp")) {
-                        fileName = "image.webp";
-                    } else if (imageUrl.toLowerCase().contains(".png")) {
-                        fileName = "image.png";
-                    } else if (imageUrl.toLowerCase().contains(".jpg") || imageUrl.toLowerCase().contains(".jpeg")) {
-                        fileName = "image.jpg";
+                    // 根据文件头识别格式，无效图片在上传 Tripo3D 之前拒绝
+                    ImageInfo imageInfo = imageIntake.inspect(imageBytes);
+                    return uploadImageBytes(imageBytes, "image." + imageInfo.getFormat().getValue(), key);
+                });
+    }
+
+    /**
+     * 把内存中的图片上传到 Tripo3D 并获取file_token
+     * @param imageBytes 图片内容
+     * @param fileName 文件名，Tripo3D 根据扩展名识别格式
+     * @param key 使用的 Key
+     * @return file_token
+     */
+    private Mono<String> uploadImageBytes(byte[] imageBytes, String fileName, TripoKeyPool.ApiKey key) {
+        // 创建multipart请求上传图片
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        // 创建文件资源
+        ByteArrayResource imageResource = new ByteArrayResource(imageBytes) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+        parts.add("file", imageResource);
+
+        return tripoApiGovernor.acquire(TripoEndpoint.UPLOAD, () -> tripoCircuitBreaker.protect(false, this.webClient.post()
+                .uri("/v2/openapi/upload")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + key.getSecret())
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .bodyValue(parts)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError(), response -> clientError(response, key, "图片上传错误: "))
+                .onStatus(status -> status.is5xxServerError(), response -> response.bodyToMono(String.class)
+                        .map(errorBody -> {
+                            log.error("❌ 图片上传5xx错误: {}", errorBody);
+                            return new TripoServerException("图片上传服务器错误: " + errorBody);
+                        }))
+                .bodyToMono(JsonNode.class)
+                .map(response -> {
+                    log.info("图片上传响应: {}", response);
+                    if (response.has("code") && response.get("code").asInt() == 0) {
+                        String imageToken = response.get("data").get("image_token").asText();
+                        log.info("✅ 图片上传成功，image_token: {}", imageToken);
+                        return imageToken;
                     } else {
-                        fileName = "image.jpg"; // 默认值
+                        throw new RuntimeException("图片上传失败: " + response);
                     }
-                    // 创建文件资源
-                    ByteArrayResource imageResource = new ByteArrayResource(imageBytes) {
-                        @Override
-                        public String getFilename() {
-                            return fileName;
-                        }
-                    };
-
-                    parts.add("file", imageResource);
-
-                    return this.webClient.post()
-                            .uri("/v2/openapi/upload")
-                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                            .contentType(MediaType.MULTIPART_FORM_DATA)
-                            .bodyValue(parts)
-                            .retrieve()
-                            .onStatus(status -> status.is4xxClientError(), response -> response.bodyToMono(String.class)
-                                    .map(errorBody -> {
-                                        log.error("❌ 图片上传4xx错误: {}", errorBody);
-                                        return new RuntimeException("图片上传错误: " + errorBody);
-                                    }))
-                            .onStatus(status -> status.is5xxServerError(), response -> response.bodyToMono(String.class)
-                                    .map(errorBody -> {
-                                        log.error("❌ 图片上传5xx错误: {}", errorBody);
-                                        return new RuntimeException("图片上传服务器错误: " + errorBody);
-                                    }))
-                            .bodyToMono(JsonNode.class)
-                            .map(response -> {
-                                log.info("图片上传响应: {}", response);
-                                if (response.has("code") && response.get("code").asInt() == 0) {
-                                    String imageToken = response.get("data").get("image_token").asText();
-                                    log.info("✅ 图片上传成功，image_token: {}", imageToken);
-                                    return imageToken;
-                                } else {
-                                    throw new RuntimeException("图片上传失败: " + response);
-                                }
-                            });
-                })
+                })))
                 .doOnError(error -> log.error("❌ 图片上传失败: {}", error.getMessage(), error));
     }
 
@@ -149,6 +206,11 @@ public class Tripo3DService {
      * @return 包含任务ID的响应 Mono
      */
     public Mono<ModelGenerateResponse> generateModelFromImageToken(String fileToken, String imageType, ImageToModelRequest request) {
+        return withLeasedKey(key -> generateModelFromImageToken(fileToken, imageType, request, key));
+    }
+
+    private Mono<ModelGenerateResponse> generateModelFromImageToken(String fileToken, String imageType,
+                                                                    ImageToModelRequest request, TripoKeyPool.ApiKey key) {
         // 验证输入参数
         if (fileToken == null || fileToken.trim().isEmpty()) {
             return Mono.error(new IllegalArgumentException("文件token不能为空"));
@@ -167,24 +229,20 @@ public class Tripo3DService {
 
         log.info("=== 发起图片转模型请求（使用file_token）===");
 
-        return this.webClient.post()
+        return createTask(key, () -> this.webClient.post()
                 .uri("/v2/openapi/task")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + key.getSecret())
                 .header(HttpHeaders.CONTENT_TYPE, "application/json")
                 .bodyValue(request)
                 .retrieve()
-                .onStatus(status -> status.is4xxClientError(), response -> response.bodyToMono(String.class)
-                        .map(errorBody -> {
-                            log.error("❌ Tripo3D API 4xx错误: {}", errorBody);
-                            return new RuntimeException("API请求错误: " + errorBody);
-                        }))
+                .onStatus(status -> status.is4xxClientError(), response -> clientError(response, key, "API请求错误: "))
                 .onStatus(status -> status.is5xxServerError(), response -> response.bodyToMono(String.class)
                         .map(errorBody -> {
                             log.error("❌ Tripo3D API 5xx错误: {}", errorBody);
-                            return new RuntimeException("Tripo3D服务器错误: " + errorBody);
+                            return new TripoServerException("Tripo3D服务器错误: " + errorBody);
                         }))
                 .bodyToMono(ModelGenerateResponse.class)
-                .timeout(Duration.ofSeconds(30))
+                .timeout(Duration.ofSeconds(30)))
                 .doOnSuccess(response -> {
                     log.info("✅ 图片转模型请求成功");
                     log.info("响应码: {}", response.getCode());
@@ -200,100 +258,322 @@ public class Tripo3DService {
 
     /**
      * 修改原有的generateModelFromImage方法，使用正确的上传流程
+     * 上传和创建任务使用同一个 Key
      */
     public Mono<ModelGenerateResponse> generateModelFromImage(String imageUrl, String imageType, ImageToModelRequest requestBody) {
-        return uploadImage(imageUrl)
-                .flatMap(fileToken -> generateModelFromImageToken(fileToken, imageType, requestBody));
+        return withLeasedKey(key -> uploadImage(imageUrl, key)
+                .flatMap(fileToken -> generateModelFromImageToken(fileToken, imageType, requestBody, key)));
+    }
+
+    /**
+     * 直接使用请求中的图片生成模型，不再经过 COS 中转下载
+     * 按图片内容哈希缓存 image_token，相同图片重复提交时优先使用已缓存 token 的 Key，跳过上传
+     * @param imageBytes 图片内容
+     * @param fileName 文件名
+     * @param imageType 图片类型
+     * @return 包含任务ID的响应 Mono
+     */
+    public Mono<ModelGenerateResponse> generateModelFromImageBytes(byte[] imageBytes, String fileName, String imageType,
+                                                                   ImageToModelRequest requestBody) {
+        String contentHash = DigestUtil.sha256Hex(imageBytes);
+        return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> imageTokenCacheService.listValid(contentHash))
+                // 缓存不可用时按未命中处理
+                .onErrorResume(e -> {
+                    log.warn("查询图片 token 缓存失败: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(List.of())
+                .flatMap(cached -> {
+                    Map<String, String> tokens = cached.stream().collect(Collectors.toMap(
+                            ImageTokenCache::getKeyFingerprint, ImageTokenCache::getImageToken, (a, b) -> a));
+                    return withLeasedKey(tokens.keySet(), key -> {
+                        String cachedToken = tokens.get(key.getFingerprint());
+                        if (cachedToken == null) {
+                            return uploadAndCache(imageBytes, fileName, contentHash, key)
+                                    .flatMap(fileToken -> generateModelFromImageToken(fileToken, imageType, requestBody, key));
+                        }
+                        log.info("命中图片 token 缓存，跳过上传: {}", contentHash);
+                        // token 被上游拒绝（过期或失效）时移除缓存，重新上传一次
+                        return generateModelFromImageToken(cachedToken, imageType, requestBody, key)
+                                .onErrorResume(TripoClientException.class, e -> {
+                                    log.warn("缓存的图片 token 被拒绝，重新上传: {}", e.getMessage());
+                                    return blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                                                imageTokenCacheService.evict(contentHash, key.getFingerprint());
+                                                return true;
+                                            })
+                                            .onErrorResume(evictError -> Mono.just(false))
+                                            .then(uploadAndCache(imageBytes, fileName, contentHash, key))
+                                            .flatMap(fileToken -> generateModelFromImageToken(fileToken, imageType, requestBody, key));
+                                });
+                    });
+                });
+    }
+
+    /**
+     * 上传图片并缓存得到的 token，缓存写入失败不影响本次生成
+     */
+    private Mono<String> uploadAndCache(byte[] imageBytes, String fileName, String contentHash, TripoKeyPool.ApiKey key) {
+        return uploadImageBytes(imageBytes, fileName, key)
+                .flatMap(fileToken -> blockingResourceLimiter.mono(BlockingResource.MYSQL, () -> {
+                            imageTokenCacheService.saveToken(contentHash, key.getFingerprint(), fileToken);
+                            return fileToken;
+                        })
+                        .onErrorResume(e -> {
+                            log.warn("写入图片 token 缓存失败: {}", e.getMessage());
+                            return Mono.just(fileToken);
+                        }));
     }
 
     /**
-     * 根据任务ID查询生成状态
+     * 根据任务ID查询生成状态，使用创建任务的 Key
      * @param taskId 任务ID
      * @return 包含任务状态和结果的响应 Mono
      */
     public Mono<TaskStatusResponse> checkTaskStatus(String taskId) {
-        return this.webClient.get()
-                .uri("/v2/openapi/task/{taskId}", taskId)
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError(), response -> response.bodyToMono(String.class)
-                        .map(errorBody -> {
-                            log.error("Tripo3D API 4xx error: {}", errorBody);
-                            return new RuntimeException("API请求错误: " + errorBody);
-                        }))
-                .onStatus(status -> status.is5xxServerError(), response -> Mono.just(new RuntimeException("Tripo3D服务器错误")))
-                .bodyToMono(TaskStatusResponse.class);
+        return Mono.defer(() -> {
+                    List<TripoKeyPool.ApiKey> candidates = tripoKeyPool.candidatesFor(taskId);
+                    ThrowUtils.throwIf(candidates.isEmpty(), ErrorCode.OPERATION_ERROR, "没有可用的 Tripo3D API Key");
+                    return checkTaskStatus(taskId, candidates, 0);
+                })
+                // 查询是幂等的，服务端错误和网络错误时退避重试，不直接结束进度流
+                .retryWhen(tripoCircuitBreaker.idempotentRetry())
+                // 只有观察到终态才释放进行中名额和固定的 Key，没有订阅者时任务仍在上游执行，
+                // 名额保留到终态或过期，Key 继续固定给该任务
+                .doOnNext(statusResponse -> {
+                    if (TaskStatusEnum.isTerminal(statusResponse.getStatus())) {
+                        tripoApiGovernor.taskFinished(taskId);
+                        tripoKeyPool.release(taskId);
+                    }
+                });
     }
 
     /**
-     * [新增] 下载模型和预览图，上传到COS，然后返回COS的URL
+     * 依次使用候选 Key 查询，查询成功的 Key 固定给该任务
+     */
+    private Mono<TaskStatusResponse> checkTaskStatus(String taskId, List<TripoKeyPool.ApiKey> candidates, int index) {
+        TripoKeyPool.ApiKey key = candidates.get(index);
+        // 熔断期间等待恢复后再查询，而不是让所有进度流失败
+        Mono<TaskStatusResponse> query = tripoCircuitBreaker.protect(true, tripoApiGovernor.acquire(TripoEndpoint.STATUS, () -> this.webClient.get()
+                        .uri("/v2/openapi/task/{taskId}", taskId)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + key.getSecret())
+                        .retrieve()
+                        .onStatus(status -> status.is4xxClientError(), response -> clientError(response, key, "API请求错误: "))
+                        .onStatus(status -> status.is5xxServerError(), response -> Mono.just(new TripoServerException("Tripo3D服务器错误")))
+                        .bodyToMono(TaskStatusResponse.class)))
+                .doOnNext(statusResponse -> tripoKeyPool.pin(taskId, key));
+        if (index + 1 >= candidates.size()) {
+            return query;
+        }
+        // 其他节点或重启前创建的任务不知道属于哪个 Key，只有 Key 被暂停或任务不属于该 Key 时换下一个 Key，
+        // 服务端错误和限流仍按原错误处理
+        return query.onErrorResume(e -> e instanceof TripoKeyRejectedException || isTaskNotFound(e),
+                e -> checkTaskStatus(taskId, candidates, index + 1));
+    }
+
+    /**
+     * 是否为任务不存在或不属于当前 Key 的错误
+     */
+    private static boolean isTaskNotFound(Throwable e) {
+        if (!(e instanceof TripoClientException clientException)) {
+            return false;
+        }
+        return clientException.getStatusCode() == 404
+                || StrUtil.containsAnyIgnoreCase(clientException.getMessage(), TASK_NOT_FOUND_KEYWORDS);
+    }
+
+    /**
+     * 租用一个 Key 执行请求，Key 鉴权失败或额度不足被暂停时换下一个 Key 重试
+     */
+    private <T> Mono<T> withLeasedKey(Function<TripoKeyPool.ApiKey, Mono<T>> call) {
+        return withLeasedKey(List.of(), call);
+    }
+
+    /**
+     * 租用一个 Key 执行请求，优先使用指定指纹的 Key
+     */
+    private <T> Mono<T> withLeasedKey(Collection<String> preferredFingerprints, Function<TripoKeyPool.ApiKey, Mono<T>> call) {
+        return Mono.defer(() -> {
+                    TripoKeyPool.ApiKey key = tripoKeyPool.lease(preferredFingerprints);
+                    return call.apply(key).doFinally(signal -> tripoKeyPool.returnLease(key));
+                })
+                .retryWhen(Retry.max(Math.max(0, tripoKeyPool.size() - 1))
+                        .filter(TripoKeyRejectedException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * 按进行中任务数和创建速率限流创建任务，任务固定使用创建它的 Key
+     * 创建任务不是幂等的，不重试，熔断期间直接拒绝
+     */
+    private Mono<ModelGenerateResponse> createTask(TripoKeyPool.ApiKey key, Supplier<Mono<ModelGenerateResponse>> call) {
+        return tripoApiGovernor.createTask(() -> tripoCircuitBreaker.protect(false, Mono.defer(call)))
+                .doOnNext(response -> tripoKeyPool.pin(response.getTaskId(), key));
+    }
+
+    /**
+     * 4xx 错误转换为异常，Key 鉴权失败或额度不足时暂停该 Key，返回可换 Key 重试的异常；
+     * 其他情况返回 {@link TripoClientException}
+     */
+    private Mono<Throwable> clientError(ClientResponse response, TripoKeyPool.ApiKey key, String messagePrefix) {
+        int statusCode = response.statusCode().value();
+        return response.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .map(errorBody -> {
+                    log.error("Tripo3D API 4xx error: {}", errorBody);
+                    if (tripoKeyPool.reportRejected(key, statusCode, errorBody)) {
+                        return new TripoKeyRejectedException(messagePrefix + errorBody);
+                    }
+                    return new TripoClientException(statusCode, messagePrefix + errorBody);
+                });
+    }
+
+    /**
+     * 下载模型和预览图并流式转存到COS，两个资源并行传输，返回COS的URL
+     * 对象键由任务ID决定，任务重新执行时写入同一对象，大文件可以续传上次已上传的分片
+     * @param taskId 任务ID
      * @param renderedImageUrl 模型渲染图片URL
      * @param pbrModelUrl 模型下载URL
-     * @return 包含COS URL的DTO或Map
+     * @return 包含COS URL的DTO
      */
-    public AssetUrls downloadAndUploadAssets(String renderedImageUrl, String pbrModelUrl) {
-        // 用于存放本次操作创建的临时文件，以便在最后统一清理
-        List<File> tempFiles = new ArrayList<>();
+    public AssetUrls downloadAndUploadAssets(String taskId, String renderedImageUrl, String pbrModelUrl) {
+        String imageFileName = imageFileName(taskId);
+        String modelFileName = modelFileName(taskId);
+        // 任一资源失败后，另一个还未开始的不再开始
+        AtomicBoolean aborted = new AtomicBoolean();
+        // 1. 预览图与PBR模型同时开始转存
+        CompletableFuture<String> imageFuture = transferAssetAsync(renderedImageUrl, imageFileName, "image/webp",
+                UploadFileTypeEnum.RENDERED_IMAGE, aborted);
+        CompletableFuture<String> modelFuture = transferAssetAsync(pbrModelUrl, modelFileName, "model/gltf-binary",
+                UploadFileTypeEnum.PBR_MODEL, aborted);
+        try {
+            // 2. 等待两者完成并返回结果
+            return new AssetUrls(imageFuture.join(), modelFuture.join());
+        } catch (CompletionException e) {
+            log.error("下载并上传资源时发生错误. ImageURL: {}, ModelURL: {}", renderedImageUrl, pbrModelUrl, e.getCause());
+            // 3. 等仍在转存的资源结束后删除已转存成功的，避免留下孤立的对象；
+            // 等待结束再返回，任务重新执行时写入同一对象键，不会被本次的清理删掉
+            discardOnSuccess(imageFuture, imageFileName, UploadFileTypeEnum.RENDERED_IMAGE);
+            discardOnSuccess(modelFuture, modelFileName, UploadFileTypeEnum.PBR_MODEL);
+            // 抛出异常，让上层业务（比如SSE流）能捕获到失败
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "处理模型文件失败");
+        }
+    }
+
+    private CompletableFuture<String> transferAssetAsync(String url, String fileName, String contentType,
+                                                         UploadFileTypeEnum uploadFileTypeEnum, AtomicBoolean aborted) {
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            if (aborted.get()) {
+                throw new CancellationException("其他资源转存失败，取消转存: " + fileName);
+            }
+            return transferAsset(url, fileName, contentType, uploadFileTypeEnum);
+        }, assetTransferExecutor);
+        future.whenComplete((cosUrl, error) -> {
+            if (error != null) {
+                aborted.set(true);
+            }
+        });
+        return future;
+    }
 
+    /**
+     * 等待转存结束，成功的删除掉
+     */
+    private void discardOnSuccess(CompletableFuture<String> future, String fileName, UploadFileTypeEnum uploadFileTypeEnum) {
+        String cosUrl = future.handle((url, error) -> error == null ? url : null).join();
+        if (cosUrl == null) {
+            return;
+        }
         try {
-            // 1. 处理预览图
-            log.info("开始处理预览图: {}", renderedImageUrl);
-            // 生成一个唯一的文件名，避免冲突
-            String imageFileName = UUID.randomUUID() + ".webp";
-            File tempImageFile = downloadUrlToTempFile(renderedImageUrl, "image_", imageFileName);
-            tempFiles.add(tempImageFile);
+            appService.deleteFile(fileName, uploadFileTypeEnum);
+        } catch (Exception deleteError) {
+            log.warn("删除孤立的COS文件失败: {}", fileName, deleteError);
+        }
+    }
 
-            // 上传到COS
-            String imageUrlOnCos = appService.uploadFile(tempImageFile, imageFileName, UploadFileTypeEnum.RENDERED_IMAGE);
+    /**
+     * 放弃转存任务时删除已上传的资源和未完成的分片上传
+     * @param taskId 任务ID
+     */
+    public void discardAssets(String taskId) {
+        for (Map.Entry<String, UploadFileTypeEnum> asset : Map.of(
+                imageFileName(taskId), UploadFileTypeEnum.RENDERED_IMAGE,
+                modelFileName(taskId), UploadFileTypeEnum.PBR_MODEL).entrySet()) {
+            try {
+                appService.deleteFile(asset.getKey(), asset.getValue());
+            } catch (Exception e) {
+                log.warn("清理资源失败: {}", asset.getKey(), e);
+            }
+        }
+    }
 
-            // 2. 处理PBR模型
-            log.info("开始处理PBR模型: {}", pbrModelUrl);
-            String modelFileName = UUID.randomUUID() + ".glb";
-            File tempModelFile = downloadUrlToTempFile(pbrModelUrl, "model_", modelFileName);
-            tempFiles.add(tempModelFile);
+    private static String imageFileName(String taskId) {
+        return taskId + ".webp";
+    }
 
-            // 上传到COS
-            String modelUrlOnCos = appService.uploadFile(tempModelFile, modelFileName, UploadFileTypeEnum.PBR_MODEL);
+    private static String modelFileName(String taskId) {
+        return taskId + ".glb";
+    }
 
-            // 3. 返回结果
-            return new AssetUrls(imageUrlOnCos, modelUrlOnCos);
+    /**
+     * 辅助方法：把URL的响应体直接流式上传到COS，只占用固定大小的缓冲区
+     * @param url 文件URL
+     * @param fileName 在COS中保存的文件名
+     * @param contentType 内容类型
+     * @param uploadFileTypeEnum 文件类型
+     * @return COS URL
+     */
+    private String transferAsset(String url, String fileName, String contentType, UploadFileTypeEnum uploadFileTypeEnum) {
+        // 下载连接在整个转存期间保持打开，按 Tripo 资源限制并发；下载失败时退避后重新转存，等待期间不占用许可
+        return Mono.fromCallable(() -> blockingResourceLimiter.call(BlockingResource.TRIPO,
+                        () -> doTransferAsset(url, fileName, contentType, uploadFileTypeEnum)))
+                .retryWhen(tripoCircuitBreaker.blockingRetry())
+                .block();
+    }
 
-        } catch (Exception e) {
-            log.error("下载并上传资源时发生错误. ImageURL: {}, ModelURL: {}", renderedImageUrl, pbrModelUrl, e);
-            // 抛出异常，让上层业务（比如SSE流）能捕获到失败
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "处理模型文件失败");
-        } finally {
-            // 4. 清理所有临时文件，无论成功还是失败
-            log.info("开始清理临时文件...");
-            for (File tempFile : tempFiles) {
-                if (tempFile != null && tempFile.exists()) {
-                    if (!tempFile.delete()) {
-                        log.warn("临时文件删除失败: {}", tempFile.getAbsolutePath());
-                    }
+    private String doTransferAsset(String url, String fileName, String contentType, UploadFileTypeEnum uploadFileTypeEnum) {
+        log.info("开始流式转存资源: {}", url);
+        try (HttpResponse response = HttpRequest.get(url).executeAsync()) {
+            if (!response.isOk()) {
+                log.error("下载资源失败，状态码: {}，URL: {}", response.getStatus(), url);
+                if (response.getStatus() >= 500) {
+                    throw new TripoServerException("下载文件失败");
                 }
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "下载文件失败");
+            }
+            long contentLength = response.contentLength();
+            if (contentLength < 0) {
+                // 长度未知时 COS SDK 会把整个流缓存在内存中，改为落盘后上传
+                return spoolAndUpload(response.bodyStream(), fileName, uploadFileTypeEnum);
             }
-            log.info("临时文件清理完毕.");
+            // 大文件边下载边分片并行上传，内存中只保留正在上传的分片，失败重试时可以续传已上传的分片
+            try (InputStream inputStream = new BufferedInputStream(response.bodyStream(), TRANSFER_BUFFER_SIZE)) {
+                return appService.uploadStream(inputStream, contentLength, contentType, fileName, uploadFileTypeEnum);
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            // 传输过程中的网络错误，可以重试
+            log.error("流式转存资源失败: {}", url, e);
+            throw new TripoServerException("下载文件失败");
         }
     }
 
     /**
-     * [新增] 辅助方法：根据URL下载内容并保存到临时文件
-     * @param url 文件URL
-     * @param prefix 临时文件前缀
-     * @param fileName 临时文件名
-     * @return 创建的临时文件对象
+     * 辅助方法：响应体长度未知时先写入临时文件再上传
      */
-    private File downloadUrlToTempFile(String url, String prefix, String fileName) {
+    private String spoolAndUpload(InputStream inputStream, String fileName, UploadFileTypeEnum uploadFileTypeEnum) {
+        File tempFile = null;
         try {
-            byte[] fileBytes = HttpUtil.downloadBytes(url);
-            // 使用File.createTempFile更安全，它会在系统默认的临时目录中创建文件
-            File tempFile = File.createTempFile(prefix, fileName);
-            FileUtil.writeBytes(fileBytes, tempFile);
-            log.info("文件已成功下载到临时位置: {}", tempFile.getAbsolutePath());
-            return tempFile;
-        } catch (Exception e) {
-            log.error("从URL下载文件失败: {}", url, e);
+            tempFile = File.createTempFile("asset_", "_" + fileName);
+            FileUtil.writeFromStream(inputStream, tempFile);
+            log.info("资源已写入临时文件: {}", tempFile.getAbsolutePath());
+            return appService.uploadFile(tempFile, fileName, uploadFileTypeEnum);
+        } catch (IOException e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "下载文件失败");
+        } finally {
+            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                log.warn("临时文件删除失败: {}", tempFile.getAbsolutePath());
+            }
         }
     }
 
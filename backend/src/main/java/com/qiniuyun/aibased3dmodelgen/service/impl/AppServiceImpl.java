@@ -1,12 +1,13 @@
 package com.qiniuyun.aibased3dmodelgen.service.impl;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import com.qiniuyun.aibased3dmodelgen.ai.AiGeneratorFacade;
 import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
 import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
 import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
 import com.qiniuyun.aibased3dmodelgen.manager.CosManager;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageInfo;
+import com.qiniuyun.aibased3dmodelgen.manager.image.ImageIntake;
 import com.qiniuyun.aibased3dmodelgen.model.enums.UploadFileTypeEnum;
 import com.qiniuyun.aibased3dmodelgen.model.enums.ObjectGenTypeEnum;
 import com.qiniuyun.aibased3dmodelgen.service.AppService;
@@ -18,8 +19,8 @@ import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Flux;
 
 import java.io.File;
-import java.util.Arrays;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @Service
 @Slf4j
@@ -34,6 +35,9 @@ public class AppServiceImpl implements AppService {
     @Resource
     private Model3DService model3DService;
 
+    @Resource
+    private ImageIntake imageIntake;
+
     @Override
     public Flux<String> augmentPrompt(Long appId, String message, ObjectGenTypeEnum objectGenTypeEnum) {
         // 1. 参数校验
@@ -46,21 +50,16 @@ public class AppServiceImpl implements AppService {
     @Override
     public String uploadFile(MultipartFile multipartFile, UploadFileTypeEnum uploadFileTypeEnum) {
         String filename = multipartFile.getOriginalFilename();
-        File file = null;
-        try {
-            // 创建临时文件
-            file = File.createTempFile("upload_", "_" + filename);
-            multipartFile.transferTo(file);
-            // 调用我们新的、基于File的上传方法
-            return uploadFile(file, filename, uploadFileTypeEnum);
+        // 直接读取请求中的文件流式上传，不再复制到临时文件；
+        // 小文件由容器保存在内存中，超过 file-size-threshold 的才落盘
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            return uploadStream(inputStream, multipartFile.getSize(), multipartFile.getContentType(),
+                    filename, uploadFileTypeEnum);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("MultipartFile upload error, filename = {}", filename, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
-        } finally {
-            // 确保临时文件被删除
-            if (file != null) {
-                deleteTempFile(file);
-            }
         }
     }
 
@@ -73,13 +72,7 @@ public class AppServiceImpl implements AppService {
      */
     @Override
     public String uploadFile(File file, String originalFilename, UploadFileTypeEnum uploadFileTypeEnum) {
-        String filepath;
-        switch (uploadFileTypeEnum) {
-            case USER_UPLOADED -> filepath = String.format("/picture/%s", originalFilename);
-            case RENDERED_IMAGE -> filepath = String.format("/rendered_image/%s", originalFilename);
-            case PBR_MODEL -> filepath = String.format("/pbr_model/%s", originalFilename);
-            default -> throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件类型错误");
-        }
+        String filepath = buildFilepath(originalFilename, uploadFileTypeEnum);
         try {
             // 直接使用已有的File对象上传到COS
             log.info("开始上传文件到COS，路径: {}", filepath);
@@ -92,16 +85,44 @@ public class AppServiceImpl implements AppService {
         }
     }
 
+    @Override
+    public String uploadStream(InputStream inputStream, long contentLength, String contentType,
+                               String originalFilename, UploadFileTypeEnum uploadFileTypeEnum) {
+        String filepath = buildFilepath(originalFilename, uploadFileTypeEnum);
+        try {
+            log.info("开始流式上传文件到COS，路径: {}，大小: {}", filepath, contentLength);
+            String cosUrl = cosManager.uploadStream(filepath, inputStream, contentLength, contentType);
+            log.info("文件成功流式上传到COS，URL: {}", cosUrl);
+            return cosUrl;
+        } catch (Exception e) {
+            log.error("COS stream upload error, filepath = {}", filepath, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传到对象存储失败");
+        }
+    }
+
+    @Override
+    public void deleteFile(String originalFilename, UploadFileTypeEnum uploadFileTypeEnum) {
+        String filepath = buildFilepath(originalFilename, uploadFileTypeEnum);
+        try {
+            cosManager.abortUnfinishedUploads(filepath);
+            cosManager.deleteObject(filepath);
+            log.info("已删除COS文件: {}", filepath);
+        } catch (Exception e) {
+            log.error("COS delete error, filepath = {}", filepath, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "删除对象存储文件失败");
+        }
+    }
+
     /**
-     * 辅助方法，用于安全删除文件
+     * 根据文件类型决定COS中的存储路径
      */
-    private void deleteTempFile(File file) {
-        if (file != null && file.exists()) {
-            boolean isDelete = file.delete();
-            if (!isDelete) {
-                log.error("临时文件删除失败, filepath = {}", file.getAbsolutePath());
-            }
-        }
+    private String buildFilepath(String originalFilename, UploadFileTypeEnum uploadFileTypeEnum) {
+        return switch (uploadFileTypeEnum) {
+            case USER_UPLOADED -> String.format("/picture/%s", originalFilename);
+            case RENDERED_IMAGE -> String.format("/rendered_image/%s", originalFilename);
+            case PBR_MODEL -> String.format("/pbr_model/%s", originalFilename);
+            default -> throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件类型错误");
+        };
     }
 
 
@@ -109,26 +130,29 @@ public class AppServiceImpl implements AppService {
     public void validPicture(Object inputSource) {
         MultipartFile multipartFile = (MultipartFile) inputSource;
         ThrowUtils.throwIf(multipartFile == null, ErrorCode.PARAMS_ERROR, "文件不能为空");
+        validPictureSize(multipartFile);
+        byte[] pictureBytes;
+        try {
+            pictureBytes = multipartFile.getBytes();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "读取图片失败");
+        }
+        // 根据文件内容校验格式和尺寸，不信任文件后缀
+        imageIntake.inspect(pictureBytes);
+    }
+
+    @Override
+    public ImageInfo validPicture(MultipartFile multipartFile, byte[] pictureBytes) {
+        ThrowUtils.throwIf(multipartFile == null, ErrorCode.PARAMS_ERROR, "文件不能为空");
+        validPictureSize(multipartFile);
+        // 根据文件内容校验格式和尺寸，不信任文件后缀
+        return imageIntake.inspect(pictureBytes);
+    }
+
+    private static void validPictureSize(MultipartFile multipartFile) {
         // 校验文件大小
         long fileSize = multipartFile.getSize();
         final long ONE_M = 1024 * 1024L;
         ThrowUtils.throwIf(fileSize > ONE_M * 2, ErrorCode.PARAMS_ERROR, "文件大小不能超过2M");
-        // 校验文件类型
-        String fileSuffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
-        // 允许上传的文件后缀列表（或者集合）
-        final List<String> ALLOW_FORMAT_LIST = Arrays.asList("png", "jpg", "jpeg", "webp");
-        ThrowUtils.throwIf(!ALLOW_FORMAT_LIST.contains(fileSuffix), ErrorCode.PARAMS_ERROR, "文件格式不支持");
-    }
-
-
-    @Override
-    public String getPictureType(MultipartFile multipartFile) {
-        String fileSuffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
-        return switch (fileSuffix) {
-            case "png" -> "image/png";
-            case "jpg", "jpeg" -> "image/jpeg";
-            case "webp" -> "image/webp";
-            default -> "application/octet-stream";
-        };
     }
 }
@@ -0,0 +1,79 @@
+package com.qiniuyun.aibased3dmodelgen.service.impl;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.qiniuyun.aibased3dmodelgen.mapper.GenerationFlightMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.GenerationFlight;
+import com.qiniuyun.aibased3dmodelgen.service.GenerationFlightService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+public class GenerationFlightServiceImpl extends ServiceImpl<GenerationFlightMapper, GenerationFlight> implements GenerationFlightService {
+
+    /**
+     * 记录的最长存活时间，超过后视为占用者已崩溃，允许其他请求接管
+     */
+    private static final Duration FLIGHT_TTL = Duration.ofMinutes(30);
+
+    @Override
+    public boolean tryAcquire(String requestSignature, Long userId) {
+        if (insert(requestSignature, userId)) {
+            return true;
+        }
+        GenerationFlight existing = getByRequestSignature(requestSignature, userId);
+        if (existing != null && existing.getCreateTime().isAfter(LocalDateTime.now().minus(FLIGHT_TTL))) {
+            return false;
+        }
+        // 记录已过期，按 id 删除后重新竞争，避免误删其他请求刚插入的记录
+        if (existing != null) {
+            removeById(existing.getId());
+            log.warn("用户 {} 请求签名 {} 的占用记录已过期，重新竞争", userId, requestSignature);
+        }
+        return insert(requestSignature, userId);
+    }
+
+    private boolean insert(String requestSignature, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        GenerationFlight flight = GenerationFlight.builder()
+                .requestSignature(requestSignature)
+                .userId(userId)
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        try {
+            return save(flight);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTask(String requestSignature, Long userId, String taskId) {
+        GenerationFlight update = new GenerationFlight();
+        update.setTaskId(taskId);
+        update.setUpdateTime(LocalDateTime.now());
+        update(update, byRequestSignature(requestSignature, userId));
+    }
+
+    @Override
+    public GenerationFlight getByRequestSignature(String requestSignature, Long userId) {
+        return getOne(byRequestSignature(requestSignature, userId));
+    }
+
+    @Override
+    public void release(String requestSignature, Long userId) {
+        remove(byRequestSignature(requestSignature, userId));
+    }
+
+    private static QueryWrapper byRequestSignature(String requestSignature, Long userId) {
+        return QueryWrapper.create()
+                .eq("requestSignature", requestSignature)
+                .eq("userId", userId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.qiniuyun.aibased3dmodelgen.service.impl;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.qiniuyun.aibased3dmodelgen.mapper.ImageTokenCacheMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ImageTokenCache;
+import com.qiniuyun.aibased3dmodelgen.service.ImageTokenCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class ImageTokenCacheServiceImpl extends ServiceImpl<ImageTokenCacheMapper, ImageTokenCache> implements ImageTokenCacheService {
+
+    /**
+     * token 有效期，取比上游实际有效期更短的值，避免使用即将过期的 token
+     */
+    @Value("${tripo3d.image-token.ttl-hours:24}")
+    private long ttlHours;
+
+    @Override
+    public List<ImageTokenCache> listValid(String contentHash) {
+        return list(QueryWrapper.create()
+                .eq("contentHash", contentHash)
+                .gt("expireTime", LocalDateTime.now()));
+    }
+
+    @Override
+    public void saveToken(String contentHash, String keyFingerprint, String imageToken) {
+        LocalDateTime now = LocalDateTime.now();
+        ImageTokenCache cache = ImageTokenCache.builder()
+                .imageToken(imageToken)
+                .expireTime(now.plusHours(ttlHours))
+                .updateTime(now)
+                .build();
+        QueryWrapper condition = QueryWrapper.create()
+                .eq("contentHash", contentHash)
+                .eq("keyFingerprint", keyFingerprint);
+        if (update(cache, condition)) {
+            return;
+        }
+        cache.setContentHash(contentHash);
+        cache.setKeyFingerprint(keyFingerprint);
+        cache.setCreateTime(now);
+        try {
+            save(cache);
+        } catch (DuplicateKeyException e) {
+            // 并发上传同一张图片，保留先写入的 token 即可
+            log.debug("图片 token 缓存已存在: {}", contentHash);
+        }
+    }
+
+    @Override
+    public void evict(String contentHash, String keyFingerprint) {
+        remove(QueryWrapper.create()
+                .eq("contentHash", contentHash)
+                .eq("keyFingerprint", keyFingerprint));
+    }
+
+    /**
+     * 定期清理过期的 token
+     */
+    @Scheduled(fixedDelayString = "${tripo3d.image-token.cleanup-interval-ms:3600000}")
+    public void removeExpired() {
+        remove(QueryWrapper.create().lt("expireTime", LocalDateTime.now()));
+    }
+}
@@ -7,18 +7,19 @@ import com.mybatisflex.spring.service.impl.ServiceImpl;
 import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
 import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
 import com.qiniuyun.aibased3dmodelgen.exception.ThrowUtils;
+import com.qiniuyun.aibased3dmodelgen.manager.task.ModelProgressBuffer;
 import com.qiniuyun.aibased3dmodelgen.mapper.Model3DMapper;
 import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserPrincipal;
 import com.qiniuyun.aibased3dmodelgen.model.dto.model3d.Model3DEditRequest;
 import com.qiniuyun.aibased3dmodelgen.model.dto.model3d.Model3DQueryRequest;
 import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
 import com.qiniuyun.aibased3dmodelgen.model.entity.User;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
 import com.qiniuyun.aibased3dmodelgen.model.vo.Model3DVO;
 import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
-import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
-import com.qiniuyun.aibased3dmodelgen.service.UserService;
+import com.qiniuyun.aibased3dmodelgen.service.ModelFinalizeJobService;
 import jakarta.annotation.Resource;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -27,6 +28,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -34,93 +36,222 @@ import java.util.stream.Collectors;
 @Slf4j
 public class Model3DServiceImpl extends ServiceImpl<Model3DMapper, Model3D> implements Model3DService {
 
+    /**
+     * 图片转模型记录的提示词
+     */
+    private static final String IMAGE_MODEL_PROMPT = "图片转模型";
+
     @Resource
-    private UserService userService;
+    @Lazy
+    private ModelFinalizeJobService modelFinalizeJobService;
 
     @Resource
-    private Tripo3DService tripo3DService;
+    private ModelProgressBuffer modelProgressBuffer;
 
     @Override
-    public Model3D saveOrUpdateModelFromText(TaskStatusResponse taskStatusResponse, String prompt, String requestSignature, HttpServletRequest request) {
-        return saveOrUpdateModelInternal(taskStatusResponse, null, prompt, requestSignature, request);
+    public Model3D saveOrUpdateModelFromText(TaskStatusResponse taskStatusResponse, String prompt, String requestSignature, UserPrincipal principal) {
+        return saveOrUpdateModelInternal(taskStatusResponse, null, prompt, requestSignature, principal);
     }
 
     @Override
     public Model3D saveOrUpdateModelFromImage(TaskStatusResponse taskStatusResponse, String pictureUrl,
-                                              HttpServletRequest request) {
-        return saveOrUpdateModelInternal(taskStatusResponse, pictureUrl, "图片转模型", null, request);
+                                              UserPrincipal principal) {
+        return saveOrUpdateModelInternal(taskStatusResponse, pictureUrl, IMAGE_MODEL_PROMPT, null, principal);
     }
 
     private Model3D saveOrUpdateModelInternal(TaskStatusResponse taskStatusResponse, String pictureUrl,
-                                              String prompt, String requestSignature, HttpServletRequest request) {
+                                              String prompt, String requestSignature, UserPrincipal principal) {
         String taskId = taskStatusResponse.getData().getTaskId();
-        Model3D existingModel = getByTaskId(taskId);
-        User loginUser = userService.getLoginUser(request);
+        Model3D existingModel = getLiveModel(taskId);
         Model3D model3D;
 
         if (existingModel != null) {
             model3D = existingModel;
         } else {
-            model3D = new Model3D();
-            model3D.setTaskId(taskId);
-            model3D.setUserId(loginUser.getId());
-            model3D.setName("model3D_" + taskId);
-            model3D.setPrompt(prompt);
-            model3D.setRequestSignature(requestSignature);
-            model3D.setCreateTime(LocalDateTime.now());
-            if (StringUtils.isNotBlank(pictureUrl)) {
-                model3D.setPictureUrl(pictureUrl);
-            }
+            model3D = newModel(taskId, pictureUrl, prompt, requestSignature, principal);
         }
 
+        return applyStatusAndSave(model3D, taskStatusResponse);
+    }
+
+    @Override
+    public Model3D createQueuedModel(String taskId, String prompt, String requestSignature, UserPrincipal principal) {
+        return createQueued(taskId, null, prompt, requestSignature, principal);
+    }
+
+    @Override
+    public Model3D createQueuedImageModel(String taskId, String pictureUrl, UserPrincipal principal) {
+        return createQueued(taskId, pictureUrl, IMAGE_MODEL_PROMPT, null, principal);
+    }
+
+    private Model3D createQueued(String taskId, String pictureUrl, String prompt, String requestSignature,
+                                 UserPrincipal principal) {
+        Model3D existingModel = getByTaskId(taskId);
+        if (existingModel != null) {
+            return existingModel;
+        }
+        Model3D model3D = newModel(taskId, pictureUrl, prompt, requestSignature, principal);
+        model3D.setStatus(TaskStatusEnum.QUEUED.getValue());
+        model3D.setProgress(0);
+        model3D.setUpdateTime(model3D.getCreateTime());
+        save(model3D);
+        modelProgressBuffer.markPersisted(model3D);
+        return model3D;
+    }
+
+    private static Model3D newModel(String taskId, String pictureUrl, String prompt, String requestSignature,
+                                    UserPrincipal principal) {
+        Model3D model3D = new Model3D();
+        model3D.setTaskId(taskId);
+        model3D.setUserId(principal.getId());
+        model3D.setName("model3D_" + taskId);
+        model3D.setPrompt(prompt);
+        model3D.setRequestSignature(requestSignature);
+        model3D.setCreateTime(LocalDateTime.now());
+        if (StringUtils.isNotBlank(pictureUrl)) {
+            model3D.setPictureUrl(pictureUrl);
+        }
+        return model3D;
+    }
+
+    @Override
+    public Model3D refreshModelStatus(TaskStatusResponse taskStatusResponse) {
+        Model3D existingModel = getLiveModel(taskStatusResponse.getData().getTaskId());
+        if (existingModel == null) {
+            return null;
+        }
+        return applyStatusAndSave(existingModel, taskStatusResponse);
+    }
+
+    /**
+     * 优先从进度写缓冲中获取生成中的模型，避免每次轮询都查库
+     */
+    private Model3D getLiveModel(String taskId) {
+        Model3D model3D = modelProgressBuffer.get(taskId);
+        return model3D != null ? model3D : getByTaskId(taskId);
+    }
+
+    /**
+     * 把任务状态写入模型并保存，任务成功时提交资源转存任务
+     * 新记录和状态变化立即落库，只有进度变化时交给写缓冲按阈值批量写入；
+     * 同一任务的并发更新由条件更新和转存任务的唯一键保证幂等，不依赖内存锁
+     */
+    private Model3D applyStatusAndSave(Model3D model3D, TaskStatusResponse taskStatusResponse) {
+        String taskId = model3D.getTaskId();
+        String previousStatus = model3D.getStatus();
         model3D.setStatus(taskStatusResponse.getStatus());
         model3D.setProgress(taskStatusResponse.getProgress());
         model3D.setUpdateTime(LocalDateTime.now());
 
         // 如果任务完成，并且我们还没有处理过文件（通过检查URL字段是否为空来防止重复执行）
-        if ("success".equals(taskStatusResponse.getStatus()) &&
+        boolean needFinalize = false;
+        if (TaskStatusEnum.SUCCESS.getValue().equals(taskStatusResponse.getStatus()) &&
                 StringUtils.isBlank(model3D.getPbrModelUrl()) && // 关键：防止重复处理
                 taskStatusResponse.getData() != null &&
                 taskStatusResponse.getData().getOutput() != null) {
-
-            try {
-                log.info("任务 {} 已成功，开始下载和上传模型资源.", taskId);
-                // 计算生成耗时（秒，两位小数），仅在首次成功时设置，避免重复覆盖
-                if (StringUtils.isBlank(model3D.getGenTime()) && taskStatusResponse.getData() != null) {
-                    long createTime = taskStatusResponse.getData().getCreateTime();
-                    // 兼容秒/毫秒时间戳
-                    long startMillis = createTime > 1_000_000_000_000L ? createTime : createTime * 1000L;
-                    double seconds = (System.currentTimeMillis() - startMillis) / 1000.0;
-                    String genTimeStr = String.format("%.2f", seconds);
-                    model3D.setGenTime(genTimeStr);
-                }
-                TaskStatusResponse.Output output = taskStatusResponse.getData().getOutput();
-
-                // 获取临时的下载URL
-                String tempRenderedImageUrl = output.getRenderedImage();
-                String tempPbrModelUrl = output.getPbrModel();
-
-                // 调用TripoService的组合方法，完成下载和上传
-                Tripo3DService.AssetUrls finalUrls = tripo3DService.downloadAndUploadAssets(tempRenderedImageUrl, tempPbrModelUrl);
-
-                // 将返回的最终COS URL设置到模型对象中
-                model3D.setPbrModelUrl(finalUrls.getModelUrl());
-                model3D.setRenderedImageUrl(finalUrls.getImageUrl());
-                log.info("模型资源已成功上传到COS并准备更新数据库记录，任务ID: {}", taskId);
-
-            } catch (Exception e) {
-                // 如果在下载或上传过程中发生异常
-                log.error("处理成功的任务资源时失败，任务ID: {}", taskId, e);
-                // 更新状态，以便前端或运维知晓
-                model3D.setStatus("processing_failed");
+            // 计算生成耗时（秒，两位小数），仅在首次成功时设置，避免重复覆盖
+            if (StringUtils.isBlank(model3D.getGenTime())) {
+                long createTime = taskStatusResponse.getData().getCreateTime();
+                // 兼容秒/毫秒时间戳
+                long startMillis = createTime > 1_000_000_000_000L ? createTime : createTime * 1000L;
+                double seconds = (System.currentTimeMillis() - startMillis) / 1000.0;
+                String genTimeStr = String.format("%.2f", seconds);
+                model3D.setGenTime(genTimeStr);
             }
+            // 资源下载和上传交给转存任务异步执行，这里只记录状态，不阻塞轮询线程
+            model3D.setStatus(TaskStatusEnum.FINALIZING.getValue());
+            needFinalize = true;
         }
 
-        // 统一在这里执行保存或更新操作
-        saveOrUpdate(model3D);
+        if (model3D.getId() == null) {
+            save(model3D);
+            modelProgressBuffer.markPersisted(model3D);
+        } else if (needFinalize || !StringUtils.equals(previousStatus, model3D.getStatus())) {
+            // 只更新状态相关字段，避免用内存中的旧记录覆盖其他流程写入的字段；
+            // 已完成转存的记录不再更新，过期的轮询结果不会把 success 改回 finalizing
+            boolean updated = update(Model3D.builder()
+                            .status(model3D.getStatus())
+                            .progress(model3D.getProgress())
+                            .genTime(model3D.getGenTime())
+                            .updateTime(model3D.getUpdateTime())
+                            .build(),
+                    QueryWrapper.create()
+                            .eq("id", model3D.getId())
+                            .ne("status", TaskStatusEnum.SUCCESS.getValue())
+                            .isNull("pbrModelUrl"));
+            if (!updated) {
+                log.info("任务 {} 已完成资源转存，忽略过期的状态更新", taskId);
+                modelProgressBuffer.evict(taskId);
+                return getByTaskId(taskId);
+            }
+            modelProgressBuffer.markPersisted(model3D);
+        } else {
+            modelProgressBuffer.offerProgress(model3D);
+        }
+        // 任务已结束，后续不会再有轮询更新
+        if (TaskStatusEnum.isTerminal(taskStatusResponse.getStatus())) {
+            modelProgressBuffer.evict(taskId);
+        }
+        // 模型记录落库后再提交转存任务，保证转存执行时记录已存在
+        if (needFinalize) {
+            modelFinalizeJobService.enqueue(taskId);
+            log.info("任务 {} 已成功，资源转存任务已提交.", taskId);
+        }
         return model3D;
     }
     
+    @Override
+    public List<Model3D> listUnfinishedModels(long afterId, int limit) {
+        List<String> unfinishedStatuses = Arrays.asList(TaskStatusEnum.QUEUED.getValue(),
+                TaskStatusEnum.RUNNING.getValue(), TaskStatusEnum.UNKNOWN.getValue());
+        return list(QueryWrapper.create()
+                .in("status", unfinishedStatuses)
+                .gt("id", afterId)
+                .orderBy("id", true)
+                .limit(limit));
+    }
+
+    @Override
+    public List<Model3D> listUnfinalizedModels(long afterId, int limit) {
+        return list(QueryWrapper.create()
+                .where((QueryWrapper wrapper) -> {
+                    wrapper.eq("status", TaskStatusEnum.FINALIZING.getValue())
+                            .or("status = ? AND pbrModelUrl IS NULL", TaskStatusEnum.SUCCESS.getValue());
+                })
+                .and("id > ?", afterId)
+                .orderBy("id", true)
+                .limit(limit));
+    }
+
+    @Override
+    public Model3D completeFinalization(String taskId, String pbrModelUrl, String renderedImageUrl) {
+        modelProgressBuffer.evict(taskId);
+        Model3D model3D = getByTaskId(taskId);
+        ThrowUtils.throwIf(model3D == null, ErrorCode.NOT_FOUND_ERROR, "模型不存在");
+        model3D.setPbrModelUrl(pbrModelUrl);
+        model3D.setRenderedImageUrl(renderedImageUrl);
+        model3D.setStatus(TaskStatusEnum.SUCCESS.getValue());
+        model3D.setProgress(100);
+        model3D.setUpdateTime(LocalDateTime.now());
+        updateById(model3D);
+        log.info("模型资源已成功上传到COS并更新数据库记录，任务ID: {}", taskId);
+        return model3D;
+    }
+
+    @Override
+    public Model3D failFinalization(String taskId) {
+        modelProgressBuffer.evict(taskId);
+        Model3D model3D = getByTaskId(taskId);
+        if (model3D == null) {
+            return null;
+        }
+        // 更新状态，以便前端或运维知晓
+        model3D.setStatus(TaskStatusEnum.PROCESSING_FAILED.getValue());
+        model3D.setUpdateTime(LocalDateTime.now());
+        updateById(model3D);
+        return model3D;
+    }
+
     @Override
     public Model3D getByTaskId(String taskId) {
         // 使用字符串字段名而不是TableDef
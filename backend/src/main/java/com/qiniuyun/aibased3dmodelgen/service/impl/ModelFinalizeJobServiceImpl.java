@@ -0,0 +1,129 @@
+package com.qiniuyun.aibased3dmodelgen.service.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.qiniuyun.aibased3dmodelgen.mapper.ModelFinalizeJobMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ModelFinalizeJob;
+import com.qiniuyun.aibased3dmodelgen.model.enums.FinalizeJobStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.ModelFinalizeJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class ModelFinalizeJobServiceImpl extends ServiceImpl<ModelFinalizeJobMapper, ModelFinalizeJob> implements ModelFinalizeJobService {
+
+    /**
+     * 首次重试的退避时间
+     */
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+
+    /**
+     * 最大退避时间
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    @Override
+    public void enqueue(String taskId) {
+        if (getByTaskId(taskId) != null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        ModelFinalizeJob job = ModelFinalizeJob.builder()
+                .taskId(taskId)
+                .status(FinalizeJobStatusEnum.PENDING.getValue())
+                .attempts(0)
+                .nextRunTime(now)
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        try {
+            save(job);
+            log.info("任务 {} 的资源转存任务已入队", taskId);
+        } catch (DuplicateKeyException e) {
+            // 其他线程或实例已创建，依赖 uk_taskId 保证幂等
+            log.info("任务 {} 的资源转存任务已存在", taskId);
+        }
+    }
+
+    @Override
+    public ModelFinalizeJob getByTaskId(String taskId) {
+        return getOne(QueryWrapper.create().eq("taskId", taskId));
+    }
+
+    @Override
+    public List<ModelFinalizeJob> listDueJobs(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .where((QueryWrapper wrapper) -> {
+                    wrapper.eq("status", FinalizeJobStatusEnum.PENDING.getValue())
+                            .le("nextRunTime", now);
+                })
+                // 执行中但租约过期，说明之前的执行实例已崩溃或重启
+                .or((QueryWrapper wrapper) -> {
+                    wrapper.eq("status", FinalizeJobStatusEnum.RUNNING.getValue())
+                            .lt("lockedUntil", now);
+                })
+                .orderBy("nextRunTime", true)
+                .limit(limit);
+        return list(queryWrapper);
+    }
+
+    @Override
+    public boolean tryClaim(ModelFinalizeJob job, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        ModelFinalizeJob update = new ModelFinalizeJob();
+        update.setStatus(FinalizeJobStatusEnum.RUNNING.getValue());
+        update.setAttempts(job.getAttempts() + 1);
+        update.setLockedUntil(now.plus(lease));
+        update.setUpdateTime(now);
+        // 以读取到的状态和次数作为条件，保证同一时刻只有一个执行者
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq("id", job.getId())
+                .eq("status", job.getStatus())
+                .eq("attempts", job.getAttempts());
+        boolean claimed = mapper.updateByQuery(update, queryWrapper) > 0;
+        if (claimed) {
+            job.setStatus(update.getStatus());
+            job.setAttempts(update.getAttempts());
+            job.setLockedUntil(update.getLockedUntil());
+        }
+        return claimed;
+    }
+
+    @Override
+    public void markSuccess(ModelFinalizeJob job) {
+        ModelFinalizeJob update = new ModelFinalizeJob();
+        update.setId(job.getId());
+        update.setStatus(FinalizeJobStatusEnum.SUCCESS.getValue());
+        update.setUpdateTime(LocalDateTime.now());
+        updateById(update);
+    }
+
+    @Override
+    public boolean markFailure(ModelFinalizeJob job, String error, int maxAttempts) {
+        boolean giveUp = job.getAttempts() >= maxAttempts;
+        LocalDateTime now = LocalDateTime.now();
+        ModelFinalizeJob update = new ModelFinalizeJob();
+        update.setId(job.getId());
+        update.setLastError(StrUtil.maxLength(error, 1000));
+        update.setUpdateTime(now);
+        if (giveUp) {
+            update.setStatus(FinalizeJobStatusEnum.FAILED.getValue());
+        } else {
+            // 指数退避：30s、60s、120s ... 最长 10 分钟
+            long backoffMillis = Math.min(MAX_BACKOFF.toMillis(),
+                    BASE_BACKOFF.toMillis() << Math.max(0, job.getAttempts() - 1));
+            update.setStatus(FinalizeJobStatusEnum.PENDING.getValue());
+            update.setNextRunTime(now.plus(Duration.ofMillis(backoffMillis)));
+        }
+        updateById(update);
+        return giveUp;
+    }
+}
@@ -1,6 +1,9 @@
 package com.qiniuyun.aibased3dmodelgen.service.impl;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.query.QueryWrapper;
@@ -18,7 +21,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,6 +37,21 @@ import static com.qiniuyun.aibased3dmodelgen.constant.UserConstant.USER_LOGIN_ST
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements UserService{
 
+    /**
+     * 登录用户缓存容量
+     */
+    private static final int USER_CACHE_CAPACITY = 10000;
+
+    /**
+     * 登录用户缓存过期时间，多实例部署时其他实例的修改最多延迟这么久生效
+     */
+    private static final long USER_CACHE_TTL_MILLIS = 60 * 1000L;
+
+    /**
+     * 用户 id -> 用户，供 getLoginUser 使用
+     */
+    private final LRUCache<Long, User> userCache = CacheUtil.newLRUCache(USER_CACHE_CAPACITY, USER_CACHE_TTL_MILLIS);
+
     @Override
     public long userRegister(String userAccount, String userPassword, String checkPassword) {
         // 1. 校验
@@ -125,13 +145,51 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User>  implements U
         if (currentUser == null || currentUser.getId() == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
-        // 从数据库查询（追求性能的话可以注释，直接返回上述结果）
+        // 优先读本地缓存，未命中再查数据库；用户被更新或删除时缓存会失效
         long userId = currentUser.getId();
-        currentUser = this.getById(userId);
-        if (currentUser == null) {
-            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
+        User cachedUser = userCache.get(userId);
+        if (cachedUser == null) {
+            cachedUser = this.getById(userId);
+            if (cachedUser == null) {
+                throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
+            }
+            userCache.put(userId, cachedUser);
+        }
+        // 返回副本，避免调用方修改缓存中的对象
+        return BeanUtil.copyProperties(cachedUser, User.class);
+    }
+
+    @Override
+    public boolean updateById(User entity, boolean ignoreNulls) {
+        boolean result = super.updateById(entity, ignoreNulls);
+        // 资料或角色变化后失效缓存，保证权限校验读到最新数据
+        if (entity.getId() != null) {
+            userCache.remove(entity.getId());
         }
-        return currentUser;
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        userCache.remove(Convert.toLong(id));
+        return result;
+    }
+
+    @Override
+    public boolean removeById(User entity) {
+        boolean result = super.removeById(entity);
+        if (entity.getId() != null) {
+            userCache.remove(entity.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeByIds(Collection<? extends Serializable> ids) {
+        boolean result = super.removeByIds(ids);
+        ids.forEach(id -> userCache.remove(Convert.toLong(id)));
+        return result;
     }
 
     @Override
@@ -0,0 +1,95 @@
+package com.qiniuyun.aibased3dmodelgen.utils;
+
+import cn.hutool.json.JSONUtil;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 流式文本的 SSE 合并工具
+ * 把模型逐 token 输出的小块在短时间窗口或数量上限内合并为一个事件，
+ * 直接拼接转义后的 JSON，避免每个 token 一次 Map 构造、JSON 序列化和网络刷写
+ */
+public final class SseChunkCoalescer {
+
+    /**
+     * 默认合并时间窗口
+     */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(50);
+
+    /**
+     * 默认单个事件最多合并的块数
+     */
+    public static final int DEFAULT_MAX_CHUNKS = 64;
+
+    private SseChunkCoalescer() {
+    }
+
+    /**
+     * 使用默认窗口合并
+     */
+    public static Flux<ServerSentEvent<String>> coalesce(Flux<String> chunks, String eventName) {
+        return coalesce(chunks, eventName, DEFAULT_MAX_CHUNKS, DEFAULT_WINDOW);
+    }
+
+    /**
+     * 使用默认窗口合并，合并后的文本由调用方转换为事件数据，用于与其他事件共用同一种数据类型
+     *
+     * @param chunks     文本块流
+     * @param eventName  事件名，为空时不设置
+     * @param dataMapper 把合并后的文本转换为事件数据
+     * @return SSE 事件流
+     */
+    public static <T> Flux<ServerSentEvent<T>> coalesce(Flux<String> chunks, String eventName,
+                                                        Function<String, T> dataMapper) {
+        return coalesce(chunks, eventName, DEFAULT_MAX_CHUNKS, DEFAULT_WINDOW,
+                batch -> dataMapper.apply(join(batch)));
+    }
+
+    /**
+     * 合并文本块并编码为 {"d": "..."} 格式的 SSE 事件
+     *
+     * @param chunks    文本块流
+     * @param eventName 事件名，为空时不设置
+     * @param maxChunks 单个事件最多合并的块数
+     * @param window    最长合并等待时间
+     * @return SSE 事件流
+     */
+    public static Flux<ServerSentEvent<String>> coalesce(Flux<String> chunks, String eventName,
+                                                        int maxChunks, Duration window) {
+        return coalesce(chunks, eventName, maxChunks, window, SseChunkCoalescer::encode);
+    }
+
+    private static <T> Flux<ServerSentEvent<T>> coalesce(Flux<String> chunks, String eventName, int maxChunks,
+                                                         Duration window, Function<List<String>, T> encoder) {
+        return chunks
+                .bufferTimeout(maxChunks, window)
+                .filter(batch -> !batch.isEmpty())
+                .map(batch -> ServerSentEvent.<T>builder()
+                        .event(eventName)
+                        .data(encoder.apply(batch))
+                        .build());
+    }
+
+    /**
+     * 拼接为 {"d": "..."}，与逐块 JSONUtil.toJsonStr(Map.of("d", chunk)) 的输出格式一致
+     */
+    static String encode(List<String> batch) {
+        return "{\"d\":" + JSONUtil.quote(join(batch)) + "}";
+    }
+
+    private static String join(List<String> batch) {
+        int length = 0;
+        for (String chunk : batch) {
+            length += chunk.length();
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (String chunk : batch) {
+            text.append(chunk);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.qiniuyun.aibased3dmodelgen.ai;
+
+import cn.hutool.json.JSONUtil;
+import com.qiniuyun.aibased3dmodelgen.config.LlmRouterConfig;
+import com.qiniuyun.aibased3dmodelgen.config.StreamingChatModelConfig;
+import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过 MockWebServer 模拟 OpenAI 兼容接口，按生产环境的方式构建提供方，在真实 HTTP 上测试路由
+ */
+class LlmRouterTest {
+
+    private MeterRegistry meterRegistry;
+
+    private LlmRouterConfig config;
+
+    private MockWebServer chatServer;
+
+    private MockWebServer reasoningServer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new LlmRouterConfig();
+        config.setComplexPromptThreshold(50);
+        config.setDefaultHedgeDelayMs(300);
+        config.setMinHedgeDelayMs(50);
+        config.setMaxHedgeDelayMs(500);
+        chatServer = new MockWebServer();
+        chatServer.start();
+        reasoningServer = new MockWebServer();
+        reasoningServer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        chatServer.shutdown();
+        reasoningServer.shutdown();
+    }
+
+    @Test
+    void primaryAnswersWithoutStartingBackup() {
+        chatServer.enqueue(streamResponse("fast", "-answer"));
+        LlmRouter router = newRouter();
+
+        Assertions.assertEquals("fast-answer", join(router.stream("a boat")));
+        Assertions.assertEquals(1, chatServer.getRequestCount());
+        Assertions.assertEquals(0, reasoningServer.getRequestCount());
+    }
+
+    @Test
+    void hedgesWhenFirstTokenIsLate() {
+        // 主提供方的响应头在 2 秒后才返回，超过对冲时间
+        chatServer.enqueue(streamResponse("late").setHeadersDelay(2, TimeUnit.SECONDS));
+        reasoningServer.enqueue(streamResponse("hedged"));
+        LlmRouter router = newRouter();
+
+        long start = System.currentTimeMillis();
+        Assertions.assertEquals("hedged", join(router.stream("a boat")));
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2000, "对冲结果不应等待慢的主提供方");
+        Assertions.assertEquals(1, meterRegistry.counter("ai.llm.backup.requests", "reason", "hedge").count());
+    }
+
+    @Test
+    void failsOverOnHttpError() {
+        config.setDefaultHedgeDelayMs(5000);
+        config.setMaxHedgeDelayMs(5000);
+        chatServer.enqueue(new MockResponse().setResponseCode(503)
+                .setBody("{\"error\":{\"message\":\"overloaded\",\"type\":\"server_error\"}}"));
+        reasoningServer.enqueue(streamResponse("recovered"));
+        LlmRouter router = newRouter();
+
+        long start = System.currentTimeMillis();
+        Assertions.assertEquals("recovered", join(router.stream("a boat")));
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2000, "故障转移不应等待对冲时间");
+        Assertions.assertEquals(1, meterRegistry.counter("ai.llm.backup.requests", "reason", "failover").count());
+        // HTTP 错误记为主提供方的失败
+        Assertions.assertEquals(1, meterRegistry.counter("ai.llm.failures", "provider", "chat").count());
+    }
+
+    @Test
+    void propagatesErrorWhenBothProvidersFail() {
+        chatServer.enqueue(new MockResponse().setResponseCode(401)
+                .setBody("{\"error\":{\"message\":\"invalid api key\",\"type\":\"invalid_request_error\"}}"));
+        reasoningServer.enqueue(new MockResponse().setResponseCode(500)
+                .setBody("{\"error\":{\"message\":\"internal\",\"type\":\"server_error\"}}"));
+        LlmRouter router = newRouter();
+
+        Assertions.assertThrows(RuntimeException.class, () -> join(router.stream("a boat")));
+        Assertions.assertEquals(1, meterRegistry.counter("ai.llm.failures", "provider", "chat").count());
+        Assertions.assertEquals(1, meterRegistry.counter("ai.llm.failures", "provider", "reasoning").count());
+    }
+
+    @Test
+    void complexPromptsPreferReasoningProvider() {
+        LlmProvider chat = new LlmProvider("chat", message -> Flux.just("chat"), meterRegistry);
+        LlmProvider reasoning = new LlmProvider("reasoning", message -> Flux.just("reasoning"), meterRegistry);
+        LlmRouter router = new LlmRouter(chat, reasoning, config, meterRegistry);
+
+        Assertions.assertSame(chat, router.rank("a boat").get(0));
+        Assertions.assertSame(reasoning, router.rank("一艘木船，船身有划痕，船头挂着灯笼，甲板上堆着渔网和木箱，整体写实风格").get(0));
+    }
+
+    private LlmRouter newRouter() {
+        return new LlmRouter(provider("chat", chatServer), provider("reasoning", reasoningServer), config, meterRegistry);
+    }
+
+    /**
+     * 与 AiGeneratorServiceFactory 相同的方式构建提供方，请求发往本地模拟服务
+     */
+    private LlmProvider provider(String name, MockWebServer server) {
+        StreamingChatModelConfig modelConfig = new StreamingChatModelConfig();
+        modelConfig.setBaseUrl(server.url("/v1").toString());
+        modelConfig.setApiKey("test-key");
+        modelConfig.setModelName(name + "-model");
+        AiGeneratorService service = AiServices.builder(AiGeneratorService.class)
+                .streamingChatModel(modelConfig.streamingChatModelPrototype())
+                .build();
+        return new LlmProvider(name, service::generatePBRStream, meterRegistry);
+    }
+
+    /**
+     * OpenAI 流式响应：每个文本块一个 chunk，最后是结束标记
+     */
+    private static MockResponse streamResponse(String... chunks) {
+        StringBuilder body = new StringBuilder();
+        for (String chunk : chunks) {
+            body.append(event(Map.of("role", "assistant", "content", chunk), null));
+        }
+        body.append(event(Map.of(), "stop"));
+        body.append("data: [DONE]\n\n");
+        return new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(body.toString());
+    }
+
+    private static String event(Map<String, String> delta, String finishReason) {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> chunk = Map.of("id", "chatcmpl-test", "object", "chat.completion.chunk",
+                "created", 1, "model", "test-model", "choices", List.of(choice));
+        return "data: " + JSONUtil.toJsonStr(chunk) + "\n\n";
+    }
+
+    private static String join(Flux<String> flux) {
+        return String.join("", flux.collectList().block(Duration.ofSeconds(10)));
+    }
+}
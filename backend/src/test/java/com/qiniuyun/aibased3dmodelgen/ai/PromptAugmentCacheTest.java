@@ -0,0 +1,62 @@
+package com.qiniuyun.aibased3dmodelgen.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class PromptAugmentCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PromptAugmentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PromptAugmentCache(meterRegistry, true, 100, 60, 0.8, 4, 1);
+    }
+
+    @Test
+    void exactHitAfterNormalization() {
+        cache.put("1:pbr", "A small  boat!", "augmented boat");
+        Assertions.assertEquals("augmented boat", cache.get("1:pbr", "a small boat"));
+        Assertions.assertEquals("augmented boat", cache.get("1:pbr", " A SMALL BOAT。"));
+    }
+
+    @Test
+    void nearHitAboveThreshold() {
+        cache.put("1:pbr", "a small red wooden boat", "augmented boat");
+        Assertions.assertEquals("augmented boat", cache.get("1:pbr", "a small red wooden boats"));
+        Assertions.assertNull(cache.get("1:pbr", "a futuristic space station"));
+    }
+
+    @Test
+    void namespacesAreIsolated() {
+        cache.put("1:pbr", "a small boat", "augmented boat");
+        Assertions.assertNull(cache.get("2:pbr", "a small boat"));
+    }
+
+    @Test
+    void replayKeepsContent() {
+        List<String> chunks = cache.replay("0123456789").collectList().block();
+        Assertions.assertEquals(List.of("0123", "4567", "89"), chunks);
+    }
+
+    @Test
+    void hitRatioCountsExactAndNearHits() {
+        Assertions.assertEquals(0, cache.hitRatio());
+        cache.put("1:pbr", "a small red wooden boat", "augmented boat");
+        cache.get("1:pbr", "a small red wooden boat");
+        cache.get("1:pbr", "a small red wooden boats");
+        cache.get("1:pbr", "a futuristic space station");
+        cache.get("2:pbr", "a small red wooden boat");
+
+        Assertions.assertEquals(1, meterRegistry.counter("ai.prompt.cache.lookups", "result", "exact").count());
+        Assertions.assertEquals(1, meterRegistry.counter("ai.prompt.cache.lookups", "result", "near").count());
+        Assertions.assertEquals(2, meterRegistry.counter("ai.prompt.cache.lookups", "result", "miss").count());
+        Assertions.assertEquals(0.5, cache.hitRatio(), 1e-9);
+    }
+}
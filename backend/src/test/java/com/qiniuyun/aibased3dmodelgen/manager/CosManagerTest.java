@@ -0,0 +1,302 @@
+package com.qiniuyun.aibased3dmodelgen.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.qcloud.cos.COSClient;
+import com.qiniuyun.aibased3dmodelgen.config.CosClientConfig;
+import com.qiniuyun.aibased3dmodelgen.config.CosMultipartConfig;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用本地 COS 兼容服务（MockWebServer 实现的分片上传接口）测试分片上传与续传
+ */
+class CosManagerTest {
+
+    @TempDir
+    File tempDir;
+
+    private MockWebServer server;
+
+    private CosStandIn standIn;
+
+    private COSClient cosClient;
+
+    private BlockingResourceLimiter limiter;
+
+    private CosMultipartConfig multipartConfig;
+
+    private CosManager cosManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = new CosStandIn();
+        server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start();
+
+        CosClientConfig clientConfig = new CosClientConfig();
+        clientConfig.setHost("https://cos.test");
+        clientConfig.setBucket("bucket-1250000000");
+        clientConfig.setRegion("ap-test");
+        clientConfig.setSecretId("id");
+        clientConfig.setSecretKey("key");
+        clientConfig.setEndpoint(server.getHostName() + ":" + server.getPort());
+        clientConfig.setHttpProtocol("http");
+        cosClient = clientConfig.cosClient();
+
+        multipartConfig = new CosMultipartConfig();
+        multipartConfig.setThreshold(DataSize.ofKilobytes(4));
+        multipartConfig.setPartSize(DataSize.ofKilobytes(1));
+        multipartConfig.setParallelism(3);
+        multipartConfig.setPartRetries(0);
+        limiter = new BlockingResourceLimiter(new SimpleMeterRegistry(), "platform", 4, 4, 4, 16, 16, 16);
+        cosManager = new CosManager();
+        ReflectionTestUtils.setField(cosManager, "cosClient", cosClient);
+        ReflectionTestUtils.setField(cosManager, "cosClientConfig", clientConfig);
+        ReflectionTestUtils.setField(cosManager, "blockingResourceLimiter", limiter);
+        ReflectionTestUtils.setField(cosManager, "cosMultipartConfig", multipartConfig);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cosClient.shutdown();
+        limiter.destroy();
+        server.shutdown();
+    }
+
+    @Test
+    void largeFileIsUploadedInParts() throws IOException {
+        File file = randomFile(5 * 1024 + 100);
+        String url = cosManager.uploadFileAsync("/pbr_model/a.glb", file).block();
+        Assertions.assertEquals("https://cos.test/pbr_model/a.glb", url);
+        Assertions.assertArrayEquals(Files.readAllBytes(file.toPath()), standIn.objects.get("/pbr_model/a.glb"));
+        Assertions.assertEquals(6, standIn.uploadedPartNumbers.size());
+    }
+
+    @Test
+    void failedUploadResumesFromUploadedParts() throws IOException {
+        File file = randomFile(5 * 1024 + 100);
+        // 顺序上传，第 4 片失败时前 3 片已上传
+        multipartConfig.setParallelism(1);
+        standIn.failingParts.add(4);
+        Assertions.assertThrows(RuntimeException.class, () -> cosManager.uploadFile("/pbr_model/b.glb", file));
+        Assertions.assertFalse(standIn.objects.containsKey("/pbr_model/b.glb"));
+        Assertions.assertEquals(List.of(1, 2, 3), standIn.uploadedPartNumbers);
+
+        // 本地文件的第 2 片发生变化，续传时需要重新上传
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(1024);
+            randomAccessFile.write(new byte[]{1, 2, 3});
+        }
+        standIn.failingParts.clear();
+        standIn.uploadedPartNumbers.clear();
+        cosManager.uploadFile("/pbr_model/b.glb", file);
+        Assertions.assertArrayEquals(Files.readAllBytes(file.toPath()), standIn.objects.get("/pbr_model/b.glb"));
+        Assertions.assertEquals(List.of(2, 4, 5, 6), standIn.uploadedPartNumbers);
+    }
+
+    @Test
+    void abortReleasesUnfinishedUploads() throws IOException {
+        File file = randomFile(5 * 1024 + 100);
+        standIn.failingParts.add(1);
+        Assertions.assertThrows(RuntimeException.class, () -> cosManager.uploadFile("/pbr_model/c.glb", file));
+        Assertions.assertEquals(1, standIn.uploads.size());
+
+        cosManager.abortUnfinishedUploads("/pbr_model/c.glb");
+        Assertions.assertTrue(standIn.uploads.isEmpty());
+    }
+
+    @Test
+    void largeStreamIsUploadedInPartsWithBoundedBuffers() throws IOException {
+        byte[] bytes = randomBytes(8 * 1024 + 100);
+        multipartConfig.setParallelism(2);
+        standIn.partDelayMillis = 50;
+        String url = cosManager.uploadStream("/pbr_model/d.glb", new ByteArrayInputStream(bytes), bytes.length,
+                "model/gltf-binary");
+        Assertions.assertEquals("https://cos.test/pbr_model/d.glb", url);
+        Assertions.assertArrayEquals(bytes, standIn.objects.get("/pbr_model/d.glb"));
+        Assertions.assertEquals(9, standIn.uploadedPartNumbers.size());
+        // 同时上传的分片数不超过并行度，读入内存的分片也不会更多
+        Assertions.assertEquals(2, standIn.maxConcurrentParts.get());
+    }
+
+    @Test
+    void failedStreamUploadResumesFromUploadedParts() {
+        byte[] bytes = randomBytes(5 * 1024 + 100);
+        multipartConfig.setParallelism(1);
+        standIn.failingParts.add(4);
+        Assertions.assertThrows(RuntimeException.class, () -> cosManager.uploadStream("/pbr_model/e.glb",
+                new ByteArrayInputStream(bytes), bytes.length, null));
+        Assertions.assertFalse(standIn.objects.containsKey("/pbr_model/e.glb"));
+        Assertions.assertEquals(List.of(1, 2, 3), standIn.uploadedPartNumbers);
+
+        // 重新下载的内容第 2 片不同，续传时需要重新上传
+        bytes[1024] ^= 1;
+        standIn.failingParts.clear();
+        standIn.uploadedPartNumbers.clear();
+        cosManager.uploadStream("/pbr_model/e.glb", new ByteArrayInputStream(bytes), bytes.length, null);
+        Assertions.assertArrayEquals(bytes, standIn.objects.get("/pbr_model/e.glb"));
+        Assertions.assertEquals(List.of(2, 4, 5, 6), standIn.uploadedPartNumbers);
+    }
+
+    @Test
+    void truncatedStreamFailsWithoutCompleting() {
+        byte[] bytes = randomBytes(5 * 1024 + 100);
+        Assertions.assertThrows(RuntimeException.class, () -> cosManager.uploadStream("/pbr_model/f.glb",
+                new ByteArrayInputStream(bytes, 0, 3 * 1024 + 10), bytes.length, null));
+        Assertions.assertFalse(standIn.objects.containsKey("/pbr_model/f.glb"));
+        Assertions.assertEquals(1, standIn.uploads.size());
+    }
+
+    @Test
+    void thresholdSelectsMultipart() throws IOException {
+        Assertions.assertFalse(cosManager.isMultipart(randomFile(1024).length()));
+        Assertions.assertTrue(cosManager.isMultipart(4 * 1024));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private File randomFile(int size) throws IOException {
+        byte[] bytes = randomBytes(size);
+        File file = new File(tempDir, "asset-" + size + ".glb");
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    /**
+     * 实现 COS 分片上传相关 XML 接口的本地服务
+     */
+    private static class CosStandIn extends Dispatcher {
+
+        /**
+         * uploadId -> 对象键
+         */
+        private final Map<String, String> uploads = new ConcurrentHashMap<>();
+
+        private final Map<String, Map<Integer, byte[]>> uploadParts = new ConcurrentHashMap<>();
+
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+        private final Set<Integer> failingParts = ConcurrentHashMap.newKeySet();
+
+        private final List<Integer> uploadedPartNumbers = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicInteger uploadIds = new AtomicInteger();
+
+        private final AtomicInteger concurrentParts = new AtomicInteger();
+
+        private final AtomicInteger maxConcurrentParts = new AtomicInteger();
+
+        private volatile long partDelayMillis;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            HttpUrl url = request.getRequestUrl();
+            String key = url.encodedPath();
+            String uploadId = url.queryParameter("uploadId");
+            String method = request.getMethod();
+            if ("GET".equals(method) && url.queryParameterNames().contains("uploads")) {
+                return listUploads(url.queryParameter("prefix"));
+            }
+            if ("POST".equals(method) && url.queryParameterNames().contains("uploads")) {
+                String newUploadId = "upload-" + uploadIds.incrementAndGet();
+                uploads.put(newUploadId, key);
+                uploadParts.put(newUploadId, new ConcurrentHashMap<>());
+                return xml("<InitiateMultipartUploadResult><Bucket>bucket</Bucket><Key>" + key + "</Key><UploadId>"
+                        + newUploadId + "</UploadId></InitiateMultipartUploadResult>");
+            }
+            if ("PUT".equals(method) && uploadId != null) {
+                int partNumber = Integer.parseInt(url.queryParameter("partNumber"));
+                if (failingParts.contains(partNumber)) {
+                    return new MockResponse().setResponseCode(400)
+                            .setBody("<Error><Code>InvalidArgument</Code><Message>part failed</Message></Error>");
+                }
+                int concurrent = concurrentParts.incrementAndGet();
+                maxConcurrentParts.accumulateAndGet(concurrent, Math::max);
+                try {
+                    Thread.sleep(partDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrentParts.decrementAndGet();
+                }
+                byte[] bytes = request.getBody().readByteArray();
+                uploadParts.get(uploadId).put(partNumber, bytes);
+                uploadedPartNumbers.add(partNumber);
+                return new MockResponse().setHeader("ETag", "\"" + DigestUtil.md5Hex(bytes) + "\"");
+            }
+            if ("GET".equals(method) && uploadId != null) {
+                StringBuilder body = new StringBuilder("<ListPartsResult><Bucket>bucket</Bucket><Key>" + key
+                        + "</Key><UploadId>" + uploadId + "</UploadId><IsTruncated>false</IsTruncated>");
+                new TreeMap<>(uploadParts.get(uploadId)).forEach((partNumber, bytes) -> body.append("<Part><PartNumber>")
+                        .append(partNumber).append("</PartNumber><LastModified>2025-01-01T00:00:00.000Z</LastModified><ETag>\"")
+                        .append(DigestUtil.md5Hex(bytes)).append("\"</ETag><Size>").append(bytes.length).append("</Size></Part>"));
+                return xml(body.append("</ListPartsResult>").toString());
+            }
+            if ("POST".equals(method) && uploadId != null) {
+                Map<Integer, byte[]> parts = new TreeMap<>(uploadParts.remove(uploadId));
+                uploads.remove(uploadId);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                parts.values().forEach(outputStream::writeBytes);
+                objects.put(key, outputStream.toByteArray());
+                return xml("<CompleteMultipartUploadResult><Location>cos.test" + key + "</Location><Bucket>bucket</Bucket><Key>"
+                        + key + "</Key><ETag>\"done-" + parts.size() + "\"</ETag></CompleteMultipartUploadResult>");
+            }
+            if ("DELETE".equals(method) && uploadId != null) {
+                uploads.remove(uploadId);
+                uploadParts.remove(uploadId);
+                return new MockResponse().setResponseCode(204);
+            }
+            return new MockResponse().setResponseCode(404);
+        }
+
+        private MockResponse listUploads(String prefix) {
+            StringBuilder body = new StringBuilder("<ListMultipartUploadsResult><Bucket>bucket</Bucket><IsTruncated>false</IsTruncated>");
+            uploads.forEach((uploadId, path) -> {
+                // 与 COS 一致，对象键不带开头的斜杠
+                String key = path.substring(1);
+                if (prefix == null || key.startsWith(prefix)) {
+                    body.append("<Upload><Key>").append(key).append("</Key><UploadId>").append(uploadId)
+                            .append("</UploadId><Initiated>2025-01-01T00:00:00.000Z</Initiated></Upload>");
+                }
+            });
+            return xml(body.append("</ListMultipartUploadsResult>").toString());
+        }
+
+        private static MockResponse xml(String body) {
+            return new MockResponse().setHeader("Content-Type", "application/xml").setBody(body);
+        }
+    }
+}
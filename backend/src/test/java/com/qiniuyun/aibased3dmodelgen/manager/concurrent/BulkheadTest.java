@@ -0,0 +1,69 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class BulkheadTest {
+
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = new Bulkhead("test", 1, 1, false, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mono<String> running = bulkhead.mono(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        });
+        Mono<String> queued = bulkhead.mono(() -> "second");
+        var runningResult = running.toFuture();
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        var queuedResult = queued.toFuture();
+
+        BusinessException e = Assertions.assertThrows(BusinessException.class,
+                () -> bulkhead.mono(() -> "third").block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(ErrorCode.TOO_MANY_REQUEST_ERROR.getCode(), e.getCode());
+
+        release.countDown();
+        Assertions.assertEquals("first", runningResult.join());
+        Assertions.assertEquals("second", queuedResult.join());
+        // 执行完成后名额释放，可以再次准入
+        Assertions.assertEquals("again", bulkhead.mono(() -> "again").block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(0, bulkhead.queueDepth());
+    }
+
+    @Test
+    void nestedCallReusesHeldPermit() {
+        String result = bulkhead.mono(() -> bulkhead.call(() -> "nested")).block(Duration.ofSeconds(5));
+        Assertions.assertEquals("nested", result);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
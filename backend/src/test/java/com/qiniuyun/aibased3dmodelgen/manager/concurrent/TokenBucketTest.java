@@ -0,0 +1,45 @@
+package com.qiniuyun.aibased3dmodelgen.manager.concurrent;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstIsServedImmediatelyThenQueued() {
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+        Assertions.assertEquals(0, bucket.reserve(SECOND, 0));
+        Assertions.assertEquals(0, bucket.reserve(SECOND, 0));
+        // 每秒 2 个令牌，第三个请求需要等待半秒
+        Assertions.assertEquals(SECOND / 2, bucket.reserve(SECOND, 0));
+        Assertions.assertEquals(SECOND, bucket.reserve(SECOND, 0));
+        // 超过最长等待时间时拒绝，且不占用令牌
+        Assertions.assertEquals(-1, bucket.reserve(SECOND, 0));
+        Assertions.assertEquals(0, bucket.reserve(SECOND, 2 * SECOND));
+    }
+
+    @Test
+    void throttlePausesAndHalvesRate() {
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+        bucket.throttle(3 * SECOND, 0);
+        Assertions.assertEquals(1.0, bucket.currentRate());
+        // 暂停 3 秒，再按减半后的速率等待一个令牌
+        Assertions.assertEquals(4 * SECOND, bucket.reserve(10 * SECOND, 0));
+        bucket.recover();
+        Assertions.assertEquals(1.1, bucket.currentRate(), 1e-9);
+    }
+
+    @Test
+    void cancelledReservationIsReturned() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        Assertions.assertEquals(0, bucket.reserve(SECOND, 0));
+        Assertions.assertEquals(SECOND / 2, bucket.reserve(SECOND, 0));
+        // 排队的请求取消后，下一个请求不需要排在它后面
+        bucket.cancelReservation();
+        Assertions.assertEquals(SECOND / 2, bucket.reserve(SECOND, 0));
+    }
+}
@@ -0,0 +1,87 @@
+package com.qiniuyun.aibased3dmodelgen.manager.image;
+
+import com.qiniuyun.aibased3dmodelgen.config.ImageIntakeConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.model.enums.ImageFormatEnum;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+class ImageIntakeTest {
+
+    private final ImageIntake imageIntake = new ImageIntake(new ImageIntakeConfig());
+
+    @Test
+    void readsDimensionsFromHeader() throws IOException {
+        ImageInfo png = ImageIntake.sniff(encode(300, 200, BufferedImage.TYPE_INT_ARGB, "png"));
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.PNG, 300, 200), png);
+        // 只有文件头也能读到尺寸
+        byte[] jpeg = encode(640, 480, BufferedImage.TYPE_INT_RGB, "jpg");
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.JPEG, 640, 480),
+                ImageIntake.sniff(Arrays.copyOf(jpeg, Math.min(jpeg.length, 1024))));
+        // VP8X 扩展格式的 WEBP 文件头
+        byte[] webp = new byte[30];
+        System.arraycopy("RIFF".getBytes(), 0, webp, 0, 4);
+        System.arraycopy("WEBPVP8X".getBytes(), 0, webp, 8, 8);
+        webp[24] = (byte) 0xFF;
+        webp[25] = 0x03;
+        webp[27] = 0x57;
+        webp[28] = 0x02;
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.WEBP, 1024, 600), ImageIntake.sniff(webp));
+    }
+
+    @Test
+    void rejectsUnknownOrTinyImages() throws IOException {
+        Assertions.assertNull(ImageIntake.sniff("not an image".getBytes()));
+        Assertions.assertThrows(BusinessException.class, () -> imageIntake.inspect("GIF89a......".getBytes()));
+        Assertions.assertThrows(BusinessException.class,
+                () -> imageIntake.inspect(encode(10, 10, BufferedImage.TYPE_INT_RGB, "png")));
+    }
+
+    @Test
+    void findsJpegFrameAfterLargeSegments() throws IOException {
+        byte[] jpeg = encode(640, 480, BufferedImage.TYPE_INT_RGB, "jpg");
+        // 在 SOI 之后插入 3 个约 60KB 的 APP1 数据段，帧头位于 180KB 之后
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(jpeg, 0, 2);
+        for (int i = 0; i < 3; i++) {
+            int length = 60_000;
+            outputStream.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length});
+            outputStream.write(new byte[length - 2]);
+        }
+        outputStream.write(jpeg, 2, jpeg.length - 2);
+        byte[] padded = outputStream.toByteArray();
+        ImageInfo info = imageIntake.inspect(padded);
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.JPEG, 640, 480), info);
+        // 使用已识别的信息缩放，不需要缩放时返回原内容
+        Assertions.assertSame(padded, imageIntake.normalize(padded, info).getBytes());
+    }
+
+    @Test
+    void downsamplesOversizedImages() throws IOException {
+        byte[] small = encode(800, 600, BufferedImage.TYPE_INT_RGB, "png");
+        NormalizedImage unchanged = imageIntake.normalize(small);
+        Assertions.assertFalse(unchanged.isResized());
+        Assertions.assertSame(small, unchanged.getBytes());
+
+        // 不透明的大图缩放后编码为 JPEG
+        NormalizedImage resized = imageIntake.normalize(encode(4096, 3072, BufferedImage.TYPE_INT_RGB, "png"));
+        Assertions.assertTrue(resized.isResized());
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.JPEG, 2048, 1536), ImageIntake.sniff(resized.getBytes()));
+
+        // 有透明通道的保留 PNG
+        NormalizedImage transparent = imageIntake.normalize(encode(3000, 1000, BufferedImage.TYPE_INT_ARGB, "png"));
+        Assertions.assertEquals(new ImageInfo(ImageFormatEnum.PNG, 2048, 683), ImageIntake.sniff(transparent.getBytes()));
+    }
+
+    private static byte[] encode(int width, int height, int type, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, type), format, outputStream);
+        return outputStream.toByteArray();
+    }
+}
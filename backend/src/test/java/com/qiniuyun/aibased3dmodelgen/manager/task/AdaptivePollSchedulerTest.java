@@ -0,0 +1,60 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class AdaptivePollSchedulerTest {
+
+    private AdaptivePollScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new AdaptivePollScheduler(new SimpleMeterRegistry(), 1000, 10000, 5000);
+    }
+
+    @Test
+    void firstPollUsesDefaultInterval() {
+        AdaptivePollScheduler.PollState state = scheduler.newState("standard/standard");
+        Assertions.assertEquals(Duration.ofMillis(5000), scheduler.nextDelay(state, 0));
+    }
+
+    @Test
+    void slowProgressPollsRarely() {
+        AdaptivePollScheduler.PollState state = scheduler.newState("standard/standard");
+        scheduler.record(state, statusOf("running", 10), 0);
+        scheduler.record(state, statusOf("running", 20), 20_000);
+        // 每 20 秒 10%，剩余 80% 约 160 秒，取上限
+        Assertions.assertEquals(Duration.ofMillis(10000), scheduler.nextDelay(state, 20_000));
+    }
+
+    @Test
+    void nearDonePollsQuickly() {
+        AdaptivePollScheduler.PollState state = scheduler.newState("standard/standard");
+        scheduler.record(state, statusOf("running", 50), 0);
+        scheduler.record(state, statusOf("running", 95), 10_000);
+        Assertions.assertEquals(Duration.ofMillis(1000), scheduler.nextDelay(state, 10_000));
+    }
+
+    @Test
+    void historyIsUsedWithoutProgressSignal() {
+        scheduler.recordCompletion("detailed/detailed", 8_000);
+        AdaptivePollScheduler.PollState state = scheduler.newState("detailed/detailed");
+        scheduler.record(state, statusOf("queued", 0), System.currentTimeMillis());
+        Duration delay = scheduler.nextDelay(state, System.currentTimeMillis());
+        Assertions.assertTrue(delay.toMillis() <= 4_000, "历史耗时较短时应缩短轮询间隔");
+    }
+
+    private TaskStatusResponse statusOf(String status, int progress) {
+        TaskStatusResponse.TaskData data = new TaskStatusResponse.TaskData();
+        data.setStatus(status);
+        data.setProgress(progress);
+        TaskStatusResponse response = new TaskStatusResponse();
+        response.setData(data);
+        return response;
+    }
+}
@@ -0,0 +1,160 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.dto.user.UserPrincipal;
+import com.qiniuyun.aibased3dmodelgen.model.entity.GenerationFlight;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.GenerationFlightService;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+class GenerationFlightManagerTest {
+
+    private static final String SIGNATURE = "signature";
+
+    private static final UserPrincipal ALICE = new UserPrincipal(1L, "alice", "user");
+
+    private static final UserPrincipal BOB = new UserPrincipal(2L, "bob", "user");
+
+    private GenerationFlightService flightService;
+
+    private Model3DService model3DService;
+
+    private TaskProgressTracker tracker;
+
+    private BlockingResourceLimiter limiter;
+
+    private GenerationFlightManager manager;
+
+    private final AtomicInteger createdTasks = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        flightService = Mockito.mock(GenerationFlightService.class);
+        model3DService = Mockito.mock(Model3DService.class);
+        tracker = Mockito.mock(TaskProgressTracker.class);
+        limiter = new BlockingResourceLimiter(new SimpleMeterRegistry(), "platform", 4, 4, 4, 16, 16, 16);
+        manager = new GenerationFlightManager();
+        ReflectionTestUtils.setField(manager, "generationFlightService", flightService);
+        ReflectionTestUtils.setField(manager, "model3DService", model3DService);
+        ReflectionTestUtils.setField(manager, "taskProgressTracker", tracker);
+        ReflectionTestUtils.setField(manager, "modelFinalizeWorker", Mockito.mock(ModelFinalizeWorker.class));
+        ReflectionTestUtils.setField(manager, "blockingResourceLimiter", limiter);
+
+        Mockito.when(flightService.tryAcquire(ArgumentMatchers.eq(SIGNATURE), ArgumentMatchers.anyLong())).thenReturn(true);
+        // 默认任务一直在进行中
+        Mockito.when(tracker.track(ArgumentMatchers.anyString(), ArgumentMatchers.anyString())).thenReturn(Mono.never());
+    }
+
+    @AfterEach
+    void tearDown() {
+        limiter.destroy();
+    }
+
+    @Test
+    void concurrentJoinersShareTheLeadersTask() {
+        Tuple2<GenerationFlightManager.Flight, GenerationFlightManager.Flight> flights =
+                Mono.zip(join(ALICE, slowTaskCreator()), join(ALICE, slowTaskCreator())).block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals("task-1", flights.getT1().getTaskId());
+        Assertions.assertEquals("task-1", flights.getT2().getTaskId());
+        Assertions.assertTrue(flights.getT1().isLeader() ^ flights.getT2().isLeader(), "只有一个请求是创建者");
+        Assertions.assertEquals(1, createdTasks.get());
+        Mockito.verify(flightService).tryAcquire(SIGNATURE, 1L);
+        // 模型记录先于任务ID公开写入，且只写一次
+        Mockito.verify(model3DService).createQueuedModel("task-1", "a boat", SIGNATURE, ALICE);
+        Mockito.verify(flightService).bindTask(SIGNATURE, 1L, "task-1");
+        Mockito.verify(tracker).track("task-1", AdaptivePollScheduler.DEFAULT_QUALITY_KEY);
+    }
+
+    @Test
+    void differentUsersDoNotShareAFlight() {
+        Tuple2<GenerationFlightManager.Flight, GenerationFlightManager.Flight> flights =
+                Mono.zip(join(ALICE, slowTaskCreator()), join(BOB, slowTaskCreator())).block(Duration.ofSeconds(5));
+
+        Assertions.assertTrue(flights.getT1().isLeader());
+        Assertions.assertTrue(flights.getT2().isLeader());
+        Assertions.assertNotEquals(flights.getT1().getTaskId(), flights.getT2().getTaskId());
+        Mockito.verify(model3DService).createQueuedModel(flights.getT1().getTaskId(), "a boat", SIGNATURE, ALICE);
+        Mockito.verify(model3DService).createQueuedModel(flights.getT2().getTaskId(), "a boat", SIGNATURE, BOB);
+    }
+
+    @Test
+    void joinerWaitsForTaskCreatedOnAnotherInstance() {
+        Mockito.when(flightService.tryAcquire(SIGNATURE, 1L)).thenReturn(false);
+        Mockito.when(flightService.getByRequestSignature(SIGNATURE, 1L)).thenReturn(
+                GenerationFlight.builder().requestSignature(SIGNATURE).userId(1L).build(),
+                GenerationFlight.builder().requestSignature(SIGNATURE).userId(1L).taskId("remote-task").build());
+
+        GenerationFlightManager.Flight flight = join(ALICE, slowTaskCreator()).block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals("remote-task", flight.getTaskId());
+        Assertions.assertFalse(flight.isLeader());
+        Assertions.assertEquals(0, createdTasks.get());
+        Mockito.verify(model3DService, Mockito.never()).createQueuedModel(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    void signatureIsReleasedWhenTheTaskEnds() {
+        Mockito.when(tracker.track(ArgumentMatchers.anyString(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(statusOf(TaskStatusEnum.FAILED)));
+
+        GenerationFlightManager.Flight first = join(ALICE, slowTaskCreator()).block(Duration.ofSeconds(5));
+        Mockito.verify(flightService, Mockito.timeout(2000)).release(SIGNATURE, 1L);
+
+        // 签名释放后相同请求重新生成
+        GenerationFlightManager.Flight second = join(ALICE, slowTaskCreator()).block(Duration.ofSeconds(5));
+        Assertions.assertTrue(first.isLeader());
+        Assertions.assertTrue(second.isLeader());
+        Assertions.assertEquals(2, createdTasks.get());
+    }
+
+    @Test
+    void failedCreationReleasesSignatureAndFailsJoiners() {
+        Supplier<Mono<String>> failingCreator = () -> Mono.delay(Duration.ofMillis(100))
+                .then(Mono.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "进行中的生成任务过多")));
+
+        Assertions.assertThrows(BusinessException.class, () ->
+                Mono.zip(join(ALICE, failingCreator), join(ALICE, failingCreator)).block(Duration.ofSeconds(5)));
+        Mockito.verify(flightService, Mockito.timeout(2000)).release(SIGNATURE, 1L);
+
+        // 失败的单飞不再被合并，之后的请求重新创建任务
+        Assertions.assertTrue(join(ALICE, slowTaskCreator()).block(Duration.ofSeconds(5)).isLeader());
+    }
+
+    private Mono<GenerationFlightManager.Flight> join(UserPrincipal principal, Supplier<Mono<String>> taskCreator) {
+        return manager.join(SIGNATURE, "a boat", principal, AdaptivePollScheduler.DEFAULT_QUALITY_KEY, taskCreator);
+    }
+
+    /**
+     * 创建任务需要一段时间，足够让并发的请求在此期间到达
+     */
+    private Supplier<Mono<String>> slowTaskCreator() {
+        return () -> Mono.delay(Duration.ofMillis(100)).map(tick -> "task-" + createdTasks.incrementAndGet());
+    }
+
+    private static TaskStatusResponse statusOf(TaskStatusEnum status) {
+        TaskStatusResponse.TaskData data = new TaskStatusResponse.TaskData();
+        data.setStatus(status.getValue());
+        TaskStatusResponse response = new TaskStatusResponse();
+        response.setData(data);
+        return response;
+    }
+}
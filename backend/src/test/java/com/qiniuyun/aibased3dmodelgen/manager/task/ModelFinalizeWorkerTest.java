@@ -0,0 +1,191 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.manager.concurrent.BlockingResourceLimiter;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.entity.ModelFinalizeJob;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import com.qiniuyun.aibased3dmodelgen.service.Model3DService;
+import com.qiniuyun.aibased3dmodelgen.service.ModelFinalizeJobService;
+import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+class ModelFinalizeWorkerTest {
+
+    private static final String TASK_ID = "task-1";
+
+    private ModelFinalizeJobService jobService;
+
+    private Model3DService model3DService;
+
+    private Tripo3DService tripo3DService;
+
+    private ThreadPoolExecutor executor;
+
+    private BlockingResourceLimiter limiter;
+
+    private ModelFinalizeWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        jobService = Mockito.mock(ModelFinalizeJobService.class);
+        model3DService = Mockito.mock(Model3DService.class);
+        tripo3DService = Mockito.mock(Tripo3DService.class);
+        executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(2));
+        limiter = new BlockingResourceLimiter(new SimpleMeterRegistry(), "platform", 4, 4, 4, 16, 16, 16);
+        worker = new ModelFinalizeWorker();
+        ReflectionTestUtils.setField(worker, "modelFinalizeJobService", jobService);
+        ReflectionTestUtils.setField(worker, "model3DService", model3DService);
+        ReflectionTestUtils.setField(worker, "tripo3DService", tripo3DService);
+        ReflectionTestUtils.setField(worker, "finalizeJobExecutor", executor);
+        ReflectionTestUtils.setField(worker, "blockingResourceLimiter", limiter);
+
+        Mockito.when(model3DService.getByTaskId(TASK_ID)).thenReturn(modelWithStatus(TaskStatusEnum.FINALIZING));
+        Mockito.when(tripo3DService.checkTaskStatus(TASK_ID)).thenReturn(Mono.just(successStatus()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        limiter.destroy();
+    }
+
+    @Test
+    void claimedJobIsFinalizedAndWaiterNotified() {
+        ModelFinalizeJob job = job(1);
+        Mockito.when(jobService.listDueJobs(ArgumentMatchers.anyInt())).thenReturn(List.of(job));
+        Mockito.when(jobService.tryClaim(ArgumentMatchers.eq(job), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(tripo3DService.downloadAndUploadAssets(TASK_ID, "image-url", "model-url"))
+                .thenReturn(new Tripo3DService.AssetUrls("cos-image", "cos-model"));
+        Mockito.when(model3DService.completeFinalization(TASK_ID, "cos-model", "cos-image"))
+                .thenReturn(modelWithStatus(TaskStatusEnum.SUCCESS));
+
+        Mono<Model3D> finalized = worker.awaitFinalized(TASK_ID, Duration.ofSeconds(30)).cache();
+        finalized.subscribe();
+        worker.dispatch();
+
+        Assertions.assertEquals(TaskStatusEnum.SUCCESS.getValue(), finalized.block(Duration.ofSeconds(5)).getStatus());
+        Mockito.verify(jobService).markSuccess(job);
+    }
+
+    @Test
+    void unclaimedJobIsLeftToOtherInstances() {
+        ModelFinalizeJob job = job(1);
+        Mockito.when(jobService.listDueJobs(ArgumentMatchers.anyInt())).thenReturn(List.of(job));
+        Mockito.when(jobService.tryClaim(ArgumentMatchers.eq(job), ArgumentMatchers.any())).thenReturn(false);
+
+        worker.dispatch();
+
+        Assertions.assertEquals(0, executor.getTaskCount());
+        Mockito.verifyNoInteractions(tripo3DService);
+    }
+
+    @Test
+    void reclaimedJobResumesTheSameTransfer() {
+        ModelFinalizeJob firstAttempt = job(1);
+        ModelFinalizeJob secondAttempt = job(2);
+        Mockito.when(jobService.listDueJobs(ArgumentMatchers.anyInt()))
+                .thenReturn(List.of(firstAttempt), List.of(secondAttempt));
+        Mockito.when(jobService.tryClaim(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(jobService.markFailure(ArgumentMatchers.eq(firstAttempt), ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyInt())).thenReturn(false);
+        Mockito.when(tripo3DService.downloadAndUploadAssets(TASK_ID, "image-url", "model-url"))
+                .thenThrow(new BusinessException(ErrorCode.SYSTEM_ERROR, "处理模型文件失败"))
+                .thenReturn(new Tripo3DService.AssetUrls("cos-image", "cos-model"));
+        Mockito.when(model3DService.completeFinalization(TASK_ID, "cos-model", "cos-image"))
+                .thenReturn(modelWithStatus(TaskStatusEnum.SUCCESS));
+
+        worker.dispatch();
+        Mockito.verify(jobService, Mockito.timeout(2000)).markFailure(ArgumentMatchers.eq(firstAttempt),
+                ArgumentMatchers.anyString(), ArgumentMatchers.anyInt());
+        Mockito.verify(tripo3DService, Mockito.never()).discardAssets(TASK_ID);
+        Mockito.verify(model3DService, Mockito.never()).failFinalization(TASK_ID);
+
+        // 租约过期或退避结束后再次领取，按同一任务ID转存，对象键不变，已上传的分片得以续传
+        worker.dispatch();
+        Mockito.verify(jobService, Mockito.timeout(2000)).markSuccess(secondAttempt);
+        Mockito.verify(tripo3DService, Mockito.times(2)).downloadAndUploadAssets(TASK_ID, "image-url", "model-url");
+        // 每次执行都重新查询任务状态，拿到新的下载地址
+        Mockito.verify(tripo3DService, Mockito.times(2)).checkTaskStatus(TASK_ID);
+    }
+
+    @Test
+    void givingUpDiscardsAssetsAndReportsFailure() {
+        ModelFinalizeJob job = job(5);
+        Mockito.when(jobService.listDueJobs(ArgumentMatchers.anyInt())).thenReturn(List.of(job));
+        Mockito.when(jobService.tryClaim(ArgumentMatchers.eq(job), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(jobService.markFailure(ArgumentMatchers.eq(job), ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyInt())).thenReturn(true);
+        Mockito.when(tripo3DService.downloadAndUploadAssets(TASK_ID, "image-url", "model-url"))
+                .thenThrow(new BusinessException(ErrorCode.SYSTEM_ERROR, "处理模型文件失败"));
+        Mockito.when(model3DService.failFinalization(TASK_ID))
+                .thenReturn(modelWithStatus(TaskStatusEnum.PROCESSING_FAILED));
+
+        Mono<Model3D> finalized = worker.awaitFinalized(TASK_ID, Duration.ofSeconds(30)).cache();
+        finalized.subscribe();
+        worker.dispatch();
+
+        Assertions.assertEquals(TaskStatusEnum.PROCESSING_FAILED.getValue(),
+                finalized.block(Duration.ofSeconds(5)).getStatus());
+        Mockito.verify(tripo3DService).discardAssets(TASK_ID);
+        Mockito.verify(jobService, Mockito.never()).markSuccess(job);
+    }
+
+    @Test
+    void waiterSeesFinalizationCompletedElsewhere() {
+        // 其他实例完成转存时本实例收不到通知，靠查库发现
+        Mockito.when(model3DService.getByTaskId(TASK_ID)).thenReturn(
+                modelWithStatus(TaskStatusEnum.FINALIZING),
+                modelWithStatus(TaskStatusEnum.SUCCESS));
+
+        Model3D model3D = worker.awaitFinalized(TASK_ID, Duration.ofSeconds(30)).block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(TaskStatusEnum.SUCCESS.getValue(), model3D.getStatus());
+    }
+
+    private static ModelFinalizeJob job(int attempts) {
+        return ModelFinalizeJob.builder()
+                .id((long) attempts)
+                .taskId(TASK_ID)
+                .status("running")
+                .attempts(attempts)
+                .build();
+    }
+
+    private static Model3D modelWithStatus(TaskStatusEnum status) {
+        Model3D model3D = new Model3D();
+        model3D.setTaskId(TASK_ID);
+        model3D.setStatus(status.getValue());
+        return model3D;
+    }
+
+    private static TaskStatusResponse successStatus() {
+        TaskStatusResponse.Output output = new TaskStatusResponse.Output();
+        output.setPbrModel("model-url");
+        output.setRenderedImage("image-url");
+        TaskStatusResponse.TaskData data = new TaskStatusResponse.TaskData();
+        data.setTaskId(TASK_ID);
+        data.setStatus(TaskStatusEnum.SUCCESS.getValue());
+        data.setProgress(100);
+        data.setOutput(output);
+        TaskStatusResponse response = new TaskStatusResponse();
+        response.setData(data);
+        return response;
+    }
+}
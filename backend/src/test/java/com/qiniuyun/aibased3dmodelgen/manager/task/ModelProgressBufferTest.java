@@ -0,0 +1,157 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.core.row.Db;
+import com.qiniuyun.aibased3dmodelgen.mapper.Model3DMapper;
+import com.qiniuyun.aibased3dmodelgen.model.entity.Model3D;
+import com.qiniuyun.aibased3dmodelgen.model.enums.TaskStatusEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+class ModelProgressBufferTest {
+
+    private ModelProgressBuffer buffer;
+
+    private MockedStatic<Db> db;
+
+    /**
+     * 每次批量写入的记录
+     */
+    private final List<List<Model3D>> batches = new ArrayList<>();
+
+    /**
+     * 每次批量写入的更新语句
+     */
+    private BiConsumer<Model3DMapper, Model3D> updater;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        buffer = new ModelProgressBuffer();
+        ReflectionTestUtils.setField(buffer, "progressStep", 10);
+        db = Mockito.mockStatic(Db.class);
+        db.when(() -> Db.executeBatch(ArgumentMatchers.<Collection<Model3D>>any(), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.eq(Model3DMapper.class), ArgumentMatchers.<BiConsumer<Model3DMapper, Model3D>>any()))
+                .thenAnswer(invocation -> {
+                    batches.add(new ArrayList<>(invocation.<Collection<Model3D>>getArgument(0)));
+                    updater = invocation.getArgument(3);
+                    return new int[0];
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void smallProgressChangesAreNotWritten() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 15));
+
+        buffer.flush();
+
+        Assertions.assertTrue(batches.isEmpty());
+        // 读取时仍能拿到内存中的最新进度
+        Assertions.assertEquals(15, buffer.get("t1").getProgress());
+    }
+
+    @Test
+    void progressPastTheStepIsWrittenOnce() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 25));
+
+        buffer.flush();
+        buffer.flush();
+
+        Assertions.assertEquals(1, batches.size());
+        Model3D written = batches.get(0).get(0);
+        Assertions.assertEquals(1L, written.getId());
+        Assertions.assertEquals(25, written.getProgress());
+        // 只写进度相关字段，不覆盖状态
+        Assertions.assertNull(written.getStatus());
+    }
+
+    @Test
+    void writeIsConditionalOnLiveStatus() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 40));
+        buffer.flush();
+
+        Model3DMapper mapper = Mockito.mock(Model3DMapper.class);
+        Model3D written = batches.get(0).get(0);
+        updater.accept(mapper, written);
+
+        ArgumentCaptor<QueryWrapper> condition = ArgumentCaptor.forClass(QueryWrapper.class);
+        Mockito.verify(mapper).updateByQuery(ArgumentMatchers.eq(written), condition.capture());
+        String sql = condition.getValue().toSQL();
+        Assertions.assertTrue(sql.contains("status IN"), sql);
+        Assertions.assertTrue(sql.contains(TaskStatusEnum.RUNNING.getValue()), sql);
+        Assertions.assertFalse(sql.contains(TaskStatusEnum.SUCCESS.getValue()), sql);
+    }
+
+    @Test
+    void evictedEntriesAreNotWritten() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 50));
+        // 终态已由其他流程写入
+        buffer.evict("t1");
+
+        buffer.flush();
+
+        Assertions.assertTrue(batches.isEmpty());
+        Assertions.assertNull(buffer.get("t1"));
+    }
+
+    @Test
+    void persistedStatusClearsPendingProgress() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 30));
+        // 状态变化时调用方立即落库
+        buffer.markPersisted(model(1L, "t1", 35));
+
+        buffer.flush();
+
+        Assertions.assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void failedWriteIsRetriedOnNextFlush() {
+        buffer.markPersisted(model(1L, "t1", 10));
+        buffer.offerProgress(model(1L, "t1", 30));
+        db.when(() -> Db.executeBatch(ArgumentMatchers.<Collection<Model3D>>any(), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.eq(Model3DMapper.class), ArgumentMatchers.<BiConsumer<Model3DMapper, Model3D>>any()))
+                .thenThrow(new IllegalStateException("数据库不可用"))
+                .thenAnswer(invocation -> {
+                    batches.add(new ArrayList<>(invocation.<Collection<Model3D>>getArgument(0)));
+                    return new int[0];
+                });
+
+        buffer.flush();
+        buffer.flush();
+
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(30, batches.get(0).get(0).getProgress());
+    }
+
+    private static Model3D model(Long id, String taskId, int progress) {
+        Model3D model3D = new Model3D();
+        model3D.setId(id);
+        model3D.setTaskId(taskId);
+        model3D.setStatus(TaskStatusEnum.RUNNING.getValue());
+        model3D.setProgress(progress);
+        return model3D;
+    }
+}
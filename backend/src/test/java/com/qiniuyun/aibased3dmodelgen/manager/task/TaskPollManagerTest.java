@@ -0,0 +1,101 @@
+package com.qiniuyun.aibased3dmodelgen.manager.task;
+
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.ErrorCode;
+import com.qiniuyun.aibased3dmodelgen.model.dto.TaskStatusResponse;
+import com.qiniuyun.aibased3dmodelgen.service.Tripo3DService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.List;
+
+class TaskPollManagerTest {
+
+    private Tripo3DService tripo3DService;
+
+    private TaskPollManager taskPollManager;
+
+    @BeforeEach
+    void setUp() {
+        tripo3DService = Mockito.mock(Tripo3DService.class);
+        taskPollManager = new TaskPollManager();
+        ReflectionTestUtils.setField(taskPollManager, "tripo3DService", tripo3DService);
+        ReflectionTestUtils.setField(taskPollManager, "adaptivePollScheduler",
+                new AdaptivePollScheduler(new SimpleMeterRegistry(), 10, 50, 20));
+        ReflectionTestUtils.setField(taskPollManager, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void subscribersShareOneUpstreamPollPerTick() {
+        Mockito.when(tripo3DService.checkTaskStatus("t1")).thenReturn(
+                Mono.just(statusOf("t1", "running", 10)),
+                Mono.just(statusOf("t1", "running", 60)),
+                Mono.just(statusOf("t1", "success", 100)));
+
+        Tuple2<List<String>, List<String>> statuses = Mono.zip(statuses("t1"), statuses("t1"))
+                .block(Duration.ofSeconds(5));
+
+        Assertions.assertEquals(List.of("running", "running", "success"), statuses.getT1());
+        Assertions.assertEquals(List.of("running", "running", "success"), statuses.getT2());
+        Mockito.verify(tripo3DService, Mockito.times(3)).checkTaskStatus("t1");
+        Assertions.assertEquals(0, taskPollManager.liveTaskCount());
+    }
+
+    @Test
+    void lateSubscriberReplaysLatestStatus() {
+        Mockito.when(tripo3DService.checkTaskStatus("t2")).thenReturn(
+                Mono.just(statusOf("t2", "running", 30)),
+                Mono.never());
+        Flux<TaskStatusResponse> shared = taskPollManager.watch("t2");
+        shared.take(1).blockLast(Duration.ofSeconds(5));
+
+        // 第一个订阅者离开后仍在宽限期内，重连拿到的是同一条轮询和最近一次状态
+        Assertions.assertEquals(1, taskPollManager.liveTaskCount());
+        Assertions.assertSame(shared, taskPollManager.watch("t2"));
+        TaskStatusResponse replayed = taskPollManager.watch("t2").blockFirst(Duration.ofSeconds(5));
+        Assertions.assertEquals(30, replayed.getProgress());
+        // 宽限期内没有订阅者时上游轮询继续进行
+        Mockito.verify(tripo3DService, Mockito.timeout(2000).times(2)).checkTaskStatus("t2");
+    }
+
+    @Test
+    void shedTickIsRetriedInsteadOfEndingTheStream() {
+        Mockito.when(tripo3DService.checkTaskStatus("t3")).thenReturn(
+                Mono.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "请求过多")),
+                Mono.just(statusOf("t3", "success", 100)));
+
+        Assertions.assertEquals(List.of("success"), statuses("t3").block(Duration.ofSeconds(5)));
+        Mockito.verify(tripo3DService, Mockito.times(2)).checkTaskStatus("t3");
+    }
+
+    @Test
+    void otherErrorsEndTheStream() {
+        Mockito.when(tripo3DService.checkTaskStatus("t4")).thenReturn(
+                Mono.error(new BusinessException(ErrorCode.OPERATION_ERROR, "任务不存在")));
+
+        Assertions.assertThrows(BusinessException.class, () -> statuses("t4").block(Duration.ofSeconds(5)));
+        Assertions.assertEquals(0, taskPollManager.liveTaskCount());
+    }
+
+    private Mono<List<String>> statuses(String taskId) {
+        return taskPollManager.watch(taskId).map(TaskStatusResponse::getStatus).collectList();
+    }
+
+    private static TaskStatusResponse statusOf(String taskId, String status, int progress) {
+        TaskStatusResponse.TaskData data = new TaskStatusResponse.TaskData();
+        data.setTaskId(taskId);
+        data.setStatus(status);
+        data.setProgress(progress);
+        TaskStatusResponse response = new TaskStatusResponse();
+        response.setData(data);
+        return response;
+    }
+}
@@ -0,0 +1,91 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import com.qiniuyun.aibased3dmodelgen.config.TripoResilienceConfig;
+import com.qiniuyun.aibased3dmodelgen.exception.BusinessException;
+import com.qiniuyun.aibased3dmodelgen.exception.TripoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TripoCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private TripoCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        TripoResilienceConfig config = new TripoResilienceConfig();
+        config.setBreakerFailureThreshold(2);
+        config.setBreakerOpenDurationMs(1000);
+        config.setBreakerMaxOpenDurationMs(3000);
+        config.setRetryMinBackoffMs(10);
+        config.setRetryMaxBackoffMs(20);
+        breaker = new TripoCircuitBreaker(config, new SimpleMeterRegistry(), now::get);
+    }
+
+    @Test
+    void opensAfterConsecutiveOutagesAndRejectsCreation() {
+        fail();
+        Assertions.assertEquals(TripoCircuitBreaker.State.CLOSED, breaker.getState());
+        fail();
+        Assertions.assertEquals(TripoCircuitBreaker.State.OPEN, breaker.getState());
+
+        Mono<String> create = breaker.protect(false, Mono.just("task"));
+        Assertions.assertThrows(BusinessException.class, () -> create.block(Duration.ofSeconds(1)));
+        // 拒绝不计入结果，熔断器保持打开
+        Assertions.assertEquals(TripoCircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertEquals(1000, breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenProbeClosesOrReopensWithLongerDuration() {
+        fail();
+        fail();
+        now.addAndGet(1000);
+        // 试探失败，熔断时间加倍
+        fail();
+        Assertions.assertEquals(TripoCircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertEquals(2000, breaker.tryAcquire());
+
+        now.addAndGet(2000);
+        Assertions.assertEquals("ok", breaker.protect(true, Mono.just("ok")).block(Duration.ofSeconds(1)));
+        Assertions.assertEquals(TripoCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void clientErrorsDoNotTrip() {
+        for (int i = 0; i < 3; i++) {
+            Mono<String> call = breaker.protect(true, Mono.error(new BusinessException(40000, "bad request")));
+            Assertions.assertThrows(BusinessException.class, () -> call.block(Duration.ofSeconds(1)));
+        }
+        Assertions.assertEquals(TripoCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void blockingRetryCanBlockOnRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        String result = Mono.fromCallable(() -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new TripoServerException("下载文件失败");
+                    }
+                    // 重试时执行阻塞调用，在 parallel 线程上会抛出 IllegalStateException
+                    return Mono.just("ok").delayElement(Duration.ofMillis(1)).block();
+                })
+                .retryWhen(breaker.blockingRetry())
+                .block(Duration.ofSeconds(5));
+        Assertions.assertEquals("ok", result);
+        Assertions.assertEquals(2, attempts.get());
+    }
+
+    private void fail() {
+        Mono<String> call = breaker.protect(true, Mono.error(new TripoServerException("Tripo3D服务器错误")));
+        Assertions.assertThrows(TripoServerException.class, () -> call.block(Duration.ofSeconds(1)));
+    }
+}
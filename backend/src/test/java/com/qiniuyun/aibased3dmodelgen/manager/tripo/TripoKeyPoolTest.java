@@ -0,0 +1,79 @@
+package com.qiniuyun.aibased3dmodelgen.manager.tripo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class TripoKeyPoolTest {
+
+    private TripoKeyPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new TripoKeyPool(new SimpleMeterRegistry(), List.of("tsk_aaaaaaaaaaaa", "tsk_bbbbbbbbbbbb"), "", 10, 30);
+    }
+
+    @Test
+    void newTasksGoToLeastLoadedKey() {
+        TripoKeyPool.ApiKey first = pool.lease();
+        pool.pin("task-1", first);
+        pool.returnLease(first);
+
+        TripoKeyPool.ApiKey second = pool.lease();
+        Assertions.assertNotSame(first, second);
+        pool.returnLease(second);
+
+        // 任务结束后负载释放
+        pool.release("task-1");
+        Assertions.assertEquals(0, pool.load(first));
+    }
+
+    @Test
+    void pinnedTaskOnlyUsesItsKey() {
+        TripoKeyPool.ApiKey key = pool.lease();
+        pool.pin("task-1", key);
+        Assertions.assertEquals(List.of(key), pool.candidatesFor("task-1"));
+        Assertions.assertEquals(2, pool.candidatesFor("unknown").size());
+    }
+
+    @Test
+    void rejectedKeyIsBenched() {
+        TripoKeyPool.ApiKey key = pool.lease();
+        pool.returnLease(key);
+        Assertions.assertFalse(pool.reportRejected(key, 400, "invalid prompt"));
+        Assertions.assertTrue(pool.reportRejected(key, 403, "insufficient credit"));
+        Assertions.assertTrue(key.isBenched());
+        for (int i = 0; i < 3; i++) {
+            TripoKeyPool.ApiKey leased = pool.lease();
+            Assertions.assertNotSame(key, leased);
+            pool.returnLease(leased);
+        }
+        // 被暂停的 Key 排在查询候选的最后
+        Assertions.assertSame(key, pool.candidatesFor("unknown").get(1));
+    }
+
+    @Test
+    void preferredKeyWinsOverLoad() {
+        TripoKeyPool.ApiKey busy = pool.lease();
+        pool.pin("task-1", busy);
+        pool.returnLease(busy);
+        // 已缓存图片 token 的 Key 即使负载更高也优先使用
+        TripoKeyPool.ApiKey leased = pool.lease(List.of(busy.getFingerprint()));
+        Assertions.assertSame(busy, leased);
+        pool.returnLease(leased);
+        // 优先的 Key 被暂停时使用其他 Key
+        pool.reportRejected(busy, 401, "");
+        TripoKeyPool.ApiKey other = pool.lease(List.of(busy.getFingerprint()));
+        Assertions.assertNotSame(busy, other);
+    }
+
+    @Test
+    void fallsBackToSingleKey() {
+        TripoKeyPool single = new TripoKeyPool(new SimpleMeterRegistry(), List.of(), "tsk_cccccccccccc", 10, 30);
+        Assertions.assertEquals(1, single.size());
+        Assertions.assertEquals("tsk_cccccccccccc", single.lease().getSecret());
+    }
+}
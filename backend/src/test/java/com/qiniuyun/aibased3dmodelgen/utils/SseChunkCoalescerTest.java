@@ -0,0 +1,44 @@
+package com.qiniuyun.aibased3dmodelgen.utils;
+
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+class SseChunkCoalescerTest {
+
+    @Test
+    void encodeMatchesMapSerialization() {
+        String text = "带\"引号\"和\n换行的 token\\";
+        Assertions.assertEquals(JSONUtil.toJsonStr(Map.of("d", text)), SseChunkCoalescer.encode(List.of(text)));
+    }
+
+    @Test
+    void coalesceMergesChunksWithinWindow() {
+        List<ServerSentEvent<String>> events = SseChunkCoalescer
+                .coalesce(Flux.just("a", "b", "c", "d", "e"), "augment", 2, Duration.ofSeconds(1))
+                .collectList()
+                .block();
+        Assertions.assertNotNull(events);
+        Assertions.assertEquals(3, events.size());
+        Assertions.assertEquals("{\"d\":\"ab\"}", events.get(0).data());
+        Assertions.assertEquals("augment", events.get(0).event());
+        Assertions.assertEquals("{\"d\":\"e\"}", events.get(2).data());
+    }
+
+    @Test
+    void coalesceMapsMergedText() {
+        List<ServerSentEvent<Integer>> events = SseChunkCoalescer
+                .coalesce(Flux.just("ab", "c"), "augment", String::length)
+                .collectList()
+                .block();
+        Assertions.assertNotNull(events);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals(3, events.get(0).data());
+    }
+}